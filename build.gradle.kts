@@ -1,6 +1,9 @@
+import java.io.OutputStream
+
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "ru.vsu.cs.odinaev"
@@ -16,6 +19,7 @@ dependencies {
     implementation("com.google.code.gson:gson:2.10.1")
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 
     implementation("info.picocli:picocli:4.7.5")
     annotationProcessor("info.picocli:picocli-codegen:4.7.5")
@@ -29,6 +33,14 @@ application {
     mainClass.set("ru.vsu.cs.odinaev.Main")
 }
 
+// Генератор данных и нагрузки: ./gradlew loadgen --args="--groups 20 --students 500 --threads 8"
+tasks.register<JavaExec>("loadgen") {
+    group = "application"
+    description = "Заполняет базу синтетическими данными и нагружает сервисы из нескольких потоков"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("ru.vsu.cs.odinaev.LoadGenerator")
+}
+
 tasks.jar {
     manifest {
         attributes(
@@ -46,6 +58,111 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// AppCDS: архив классов, загруженных при тренировочном прогоне типичных команд (src/cds/training.txt).
+// JVM отображает его в память при запуске вместо загрузки и проверки классов из jar:
+//   java -XX:SharedArchiveFile=build/libs/minibrs.jsa -jar build/libs/minibrs.jar
+// Архив действителен только для той же версии JDK и того же minibrs.jar, поэтому пересобирается вместе с ним
+val cdsArchiveFile = layout.buildDirectory.file("libs/minibrs.jsa")
+val cdsDatabaseDir = layout.buildDirectory.dir("cds")
+val cdsJavaLauncher = javaToolchains.launcherFor { languageVersion.set(JavaLanguageVersion.of(17)) }
+
+val cdsArchive = tasks.register<JavaExec>("cdsArchive") {
+    group = "build"
+    description = "Создает архив AppCDS minibrs.jsa по тренировочному сценарию"
+    javaLauncher.set(cdsJavaLauncher)
+    classpath = files(tasks.jar.flatMap { it.archiveFile })
+    mainClass.set("ru.vsu.cs.odinaev.Main")
+    args("-f", "src/cds/training.txt")
+    // Отдельная база, чтобы тренировка не трогала ./data
+    systemProperty("database.url", cdsDatabaseDir.get().file("minibrs").asFile.absolutePath.let { "jdbc:h2:file:$it" })
+    // picocli собран под Java 5 (версия class-файлов 49), такие классы CDS пропускает с предупреждением на каждый
+    jvmArgs("-XX:ArchiveClassesAtExit=${cdsArchiveFile.get().asFile.absolutePath}", "-Xlog:cds=off")
+    // Часть команд сценария намеренно завершается ошибкой «не найдена»
+    isIgnoreExitValue = true
+    standardOutput = OutputStream.nullOutputStream()
+    inputs.files("src/cds")
+    outputs.file(cdsArchiveFile)
+    doFirst {
+        delete(cdsDatabaseDir)
+    }
+}
+
+// Время запуска с архивом AppCDS и без него: ./gradlew startupReport -PstartupRuns=10
+// Результат: медианы по командам в build/reports/startup/startup.txt
+tasks.register("startupReport") {
+    group = "verification"
+    description = "Замеряет время запуска minibrs.jar с архивом AppCDS и без него"
+    dependsOn(cdsArchive)
+    val runs = providers.gradleProperty("startupRuns").map { it.toInt() }.orElse(5)
+    val jar = tasks.jar.flatMap { it.archiveFile }
+    val report = layout.buildDirectory.file("reports/startup/startup.txt")
+    val databaseUrl = "jdbc:h2:file:" + cdsDatabaseDir.get().file("minibrs").asFile.absolutePath
+    outputs.file(report)
+    outputs.upToDateWhen { false }
+
+    doLast {
+        val java = cdsJavaLauncher.get().executablePath.asFile.absolutePath
+        val archive = cdsArchiveFile.get().asFile.absolutePath
+
+        // Медиана полного времени процесса: от запуска JVM до выхода после команды
+        fun medianMillis(jvmArgs: List<String>, command: List<String>): Long {
+            val times = (1..runs.get()).map {
+                val start = System.nanoTime()
+                val process = ProcessBuilder(listOf(java) + jvmArgs + listOf("-Ddatabase.url=$databaseUrl", "-jar", jar.get().asFile.absolutePath) + command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start()
+                if (process.waitFor() != 0) {
+                    throw GradleException("Команда ${command.joinToString(" ")} завершилась с кодом ${process.exitValue()}")
+                }
+                (System.nanoTime() - start) / 1_000_000
+            }
+            return times.sorted()[times.size / 2]
+        }
+
+        // Флаги коротких запусков из start.sh: только C1 и последовательный GC не тратят время на C2 и потоки G1
+        val shortLived = listOf("-XX:SharedArchiveFile=$archive", "-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC")
+        val lines = mutableListOf(
+            "Время запуска minibrs.jar, медиана из ${runs.get()} запусков, мс",
+            String.format("%-14s %10s %10s %12s %10s", "команда", "без CDS", "AppCDS", "AppCDS+C1", "выигрыш")
+        )
+        for (command in listOf(listOf("help"), listOf("list-groups"))) {
+            val plain = medianMillis(emptyList(), command)
+            val shared = medianMillis(listOf("-XX:SharedArchiveFile=$archive"), command)
+            val short = medianMillis(shortLived, command)
+            lines += String.format("%-14s %10d %10d %12d %9d%%", command.joinToString(" "), plain, shared, short, (plain - short) * 100 / plain)
+        }
+
+        val file = report.get().asFile
+        file.parentFile.mkdirs()
+        file.writeText(lines.joinToString(System.lineSeparator()) + System.lineSeparator())
+        lines.forEach { logger.lifecycle(it) }
+    }
+}
+
+// Тренировочный прогон и замеры запуска долгие и требуют записи архива JVM, поэтому в build они
+// включаются только явно: ./gradlew build -PwithStartupReport
+if (providers.gradleProperty("withStartupReport").isPresent) {
+    tasks.build {
+        dependsOn("startupReport")
+    }
+}
+
+// Бенчмарки репозиториев и сервисов на H2 в памяти: ./gradlew jmh
+// Результат: ops/s для записей, мкс на запрос для чтений и скорость аллокаций (профайлер gc) в build/results/jmh/results.txt
+jmh {
+    jmhVersion.set("1.37")
+    profilers.set(listOf("gc"))
+    fork.set(1)
+    warmupIterations.set(2)
+    warmup.set("2s")
+    iterations.set(3)
+    timeOnIteration.set("2s")
+    resultFormat.set("TEXT")
+    // Отдельный прогон: ./gradlew jmh -PjmhInclude=ServiceBenchmark.reportGroup
+    providers.gradleProperty("jmhInclude").orNull?.let { includes.set(listOf(it)) }
+}
+
 java {
     toolchain {
         languageVersion.set(JavaLanguageVersion.of(17))
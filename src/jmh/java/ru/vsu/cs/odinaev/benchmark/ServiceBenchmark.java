@@ -0,0 +1,228 @@
+package ru.vsu.cs.odinaev.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.vsu.cs.odinaev.ServiceContext;
+import ru.vsu.cs.odinaev.database.DatabaseManager;
+import ru.vsu.cs.odinaev.model.DeletionResult;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
+import ru.vsu.cs.odinaev.model.TaskCompletion;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
+import ru.vsu.cs.odinaev.service.GroupService;
+import ru.vsu.cs.odinaev.service.StudentService;
+import ru.vsu.cs.odinaev.service.TaskService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки горячих операций сервисов на H2 в памяти, на хранилище в памяти без JDBC и на нем же с журналом.
+ * Каждый форк получает свою базу, заполненную groups × studentsPerGroup студентами
+ * (по 3 задачи у каждого, примерно половина сдана). Запуск: ./gradlew jmh
+ * Записи измеряются в ops/s, запросы на чтение — средним временем одного запроса в микросекундах,
+ * чтобы влияние statementCacheSize было видно как задержка запроса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ServiceBenchmark {
+
+    @Param({"20"})
+    int groups;
+
+    @Param({"200"})
+    int studentsPerGroup;
+
+    // Размер кэша разобранных запросов H2 (database.pool.statement-cache-size), 8 — значение H2 по умолчанию
+    @Param({"64"})
+    int statementCacheSize;
+
+    // Хранилище (database.backend): разница h2 и memory — накладные расходы JDBC и H2 поверх логики сервисов,
+    // journal — то же хранилище в памяти с журналом и fsync на каждую фиксацию
+    @Param({"h2", "memory", "journal"})
+    String backend;
+
+    GroupService groupService;
+    StudentService studentService;
+    TaskService taskService;
+    List<UUID> groupIds;
+    List<UUID> studentIds;
+    // Студенты, созданные createStudent за итерацию: удаляются после нее, чтобы набор данных не рос
+    final List<UUID> createdStudentIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // DatabaseManager читает настройки один раз, при первом обращении в этом форке
+        System.setProperty("database.url", "jdbc:h2:mem:minibrs-bench;DB_CLOSE_DELAY=-1");
+        System.setProperty("database.pool.statement-cache-size", String.valueOf(statementCacheSize));
+        System.setProperty("database.backend", backend);
+        System.setProperty("database.journal.dir", createTempDirectory().toString());
+        // Замеряются сервисы и хранилище, без кэша групп и студентов
+        System.setProperty("database.cache.enabled", "false");
+
+        ServiceContext services = ServiceContext.create(DatabaseManager.getInstance());
+        taskService = services.taskService();
+        groupService = services.groupService();
+        studentService = services.studentService();
+
+        groupIds = new ArrayList<>(groups);
+        studentIds = new ArrayList<>(groups * studentsPerGroup);
+        for (int g = 0; g < groups; g++) {
+            Group group = groupService.createGroup("Группа " + g, g % 4 + 1);
+            groupIds.add(group.getId());
+            studentIds.addAll(seedStudents(group.getId(), studentsPerGroup));
+        }
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("minibrs-bench-journal");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Добавляет студентов группы с задачами одним пакетом и отмечает примерно половину задач сданными
+     */
+    List<UUID> seedStudents(UUID groupId, int count) {
+        List<Student> students = new ArrayList<>(count);
+        List<TaskStatusUpdate> submitted = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < count; i++) {
+            Student student = new Student(UUID.randomUUID(), "Студент " + i, groupId);
+            students.add(student);
+            for (int number = 1; number <= 3; number++) {
+                if (random.nextBoolean()) {
+                    submitted.add(new TaskStatusUpdate(student.getId(), number, TaskStatus.SUBMITTED));
+                }
+            }
+        }
+
+        List<UUID> ids = students.stream().map(Student::getId).toList();
+        taskService.transactionManager().run(() -> {
+            studentService.studentRepository().saveAll(students);
+            taskService.initializeStudentTasks(ids);
+            taskService.taskRepository().updateStatusBatch(submitted);
+        });
+        return ids;
+    }
+
+    @Benchmark
+    public Student createStudent() {
+        UUID groupId = groupIds.get(ThreadLocalRandom.current().nextInt(groupIds.size()));
+        Student student = studentService.createStudent("Новый студент", groupId);
+        createdStudentIds.add(student.getId());
+        return student;
+    }
+
+    /**
+     * Возвращает базу к исходному размеру: иначе каждая итерация createStudent увеличивала бы группы,
+     * и замеры следующих итераций и бенчмарков шли бы на растущем наборе данных
+     */
+    @TearDown(Level.Iteration)
+    public void deleteCreatedStudents() {
+        createdStudentIds.forEach(studentService::deleteStudent);
+        createdStudentIds.clear();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public GroupReport reportGroup() {
+        UUID groupId = groupIds.get(ThreadLocalRandom.current().nextInt(groupIds.size()));
+        return groupService.getGroupReport(groupId);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<GroupStatistics> listGroups() {
+        return groupService.getAllGroupsWithStatistics();
+    }
+
+    // Страница из 20 студентов группы с прогрессом, продолжающая список после случайного студента:
+    // в отличие от reportGroup, время не растет с размером группы
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<StudentProgress> studentsPage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID groupId = groupIds.get(random.nextInt(groupIds.size()));
+        UUID afterId = studentIds.get(random.nextInt(studentIds.size()));
+        return studentService.getStudentProgressPage(groupId, afterId, 20);
+    }
+
+    // Сдача задач по всем группам и список не сдавших задачу считаются по индексу статусов,
+    // а markTask поддерживает его в актуальном состоянии
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TaskCompletion taskCompletion() {
+        return taskService.getTaskCompletion(groupIds);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<UUID> missingTask() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID groupId = groupIds.get(random.nextInt(groupIds.size()));
+        return taskService.getStudentsMissingTask(groupId, random.nextInt(3) + 1);
+    }
+
+    @Benchmark
+    public TaskStatusChange markTask() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID studentId = studentIds.get(random.nextInt(studentIds.size()));
+        TaskStatus status = random.nextBoolean() ? TaskStatus.SUBMITTED : TaskStatus.NOT_SUBMITTED;
+        return taskService.updateTaskStatus(studentId, random.nextInt(3) + 1, status);
+    }
+
+    @Benchmark
+    public DeletionResult deleteGroup(DeleteState state) {
+        return groupService.deleteGroup(state.groupId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseManager.getInstance().close();
+    }
+
+    /**
+     * Группа для удаления создается перед каждым вызовом и в замер не входит.
+     * Level.Invocation допустим: удаление группы с задачами занимает миллисекунды
+     */
+    @State(Scope.Thread)
+    public static class DeleteState {
+        UUID groupId;
+
+        @Setup(Level.Invocation)
+        public void createGroup(ServiceBenchmark benchmark) {
+            groupId = benchmark.groupService.createGroup("Удаляемая группа", 1).getId();
+            benchmark.seedStudents(groupId, benchmark.studentsPerGroup);
+        }
+    }
+}
@@ -2,41 +2,36 @@ package ru.vsu.cs.odinaev;
 
 import ru.vsu.cs.odinaev.controller.CmdController;
 import ru.vsu.cs.odinaev.database.DatabaseManager;
-import ru.vsu.cs.odinaev.repository.GroupRepository;
-import ru.vsu.cs.odinaev.repository.StudentRepository;
-import ru.vsu.cs.odinaev.repository.TaskRepository;
-import ru.vsu.cs.odinaev.service.GroupService;
-import ru.vsu.cs.odinaev.service.StudentService;
-import ru.vsu.cs.odinaev.service.TaskService;
+import ru.vsu.cs.odinaev.metrics.StartupTimer;
 
 public class Application {
     private final CmdController controller;
     private final DatabaseManager dbManager;
 
-    public Application() {
-        // Инициализируем DatabaseManager (создает пул соединений и таблицы)
-        this.dbManager = DatabaseManager.getInstance();
+    public Application(String[] args) {
+        // Читаем настройки; пул соединений и миграции выполняются при первом запросе к базе
+        this.dbManager = StartupTimer.measure("конфигурация", DatabaseManager::getInstance);
 
-        // Инициализируем репозитории БД
-        GroupRepository groupRepository = new GroupRepository();
-        StudentRepository studentRepository = new StudentRepository();
-        TaskRepository taskRepository = new TaskRepository();
-
-        // Инициализируем сервисы
-        TaskService taskService = new TaskService(taskRepository);
-        GroupService groupService = new GroupService(groupRepository, null);
-        StudentService studentService = new StudentService(studentRepository, groupService, taskService);
+        // В интерактивном режиме база открывается в фоне, пока строятся сервисы, команды и терминал
+        if (CmdController.isInteractive(args) && dbManager.getBackend().equals(DatabaseManager.BACKEND_H2)) {
+            dbManager.initializeAsync();
+        }
 
-        // Обновляем GroupService с правильной ссылкой
-        groupService = new GroupService(groupRepository, studentService);
+        // Репозитории, кэши и сервисы
+        ServiceContext services = StartupTimer.measure("сервисы", () -> ServiceContext.create(dbManager));
 
         // Создаем контроллер
-        this.controller = new CmdController(groupService, studentService, taskService);
+        this.controller = StartupTimer.measure("контроллер", () -> new CmdController(services.groupService(), services.studentService(), services.taskService(), services.diagnosticsService(), services.transactionManager()));
     }
 
-    public void run(String[] args) {
+    /**
+     * Запускает контроллер и закрывает базу.
+     *
+     * @return код завершения процесса
+     */
+    public int run(String[] args) {
         try {
-            controller.execute(args);
+            return controller.execute(args);
         } finally {
             shutdown();
         }
@@ -49,7 +44,7 @@ public class Application {
     }
 
     public static void main(String[] args) {
-        Application app = new Application();
-        app.run(args);
+        Application app = new Application(args);
+        System.exit(app.run(args));
     }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+package ru.vsu.cs.odinaev;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import ru.vsu.cs.odinaev.database.DatabaseManager;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
+import ru.vsu.cs.odinaev.service.GroupService;
+import ru.vsu.cs.odinaev.service.StudentService;
+import ru.vsu.cs.odinaev.service.TaskService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Генератор нагрузки: заполняет базу через настоящие сервисы и воспроизводит смесь
+ * команд чтения и записи из нескольких потоков, печатая пропускную способность и перцентили задержек.
+ * Запуск: ./gradlew loadgen --args="--groups 20 --students 500 --threads 8"
+ */
+@Command(name = "loadgen", description = "Генератор данных и нагрузки для MiniBRS.", mixinStandardHelpOptions = true)
+public class LoadGenerator implements Callable<Integer> {
+
+    private static final int SEED_BATCH_SIZE = 500;
+
+    @Option(names = "--groups", paramLabel = "<n>", defaultValue = "10", description = "Количество создаваемых групп (по умолчанию ${DEFAULT-VALUE}).")
+    int groups;
+
+    @Option(names = "--students", paramLabel = "<n>", defaultValue = "200", description = "Студентов в каждой группе (по умолчанию ${DEFAULT-VALUE}).")
+    int studentsPerGroup;
+
+    @Option(names = "--submitted-ratio", paramLabel = "<0..1>", defaultValue = "0.6", description = "Средняя доля сданных задач; первые задачи сдаются чаще последних (по умолчанию ${DEFAULT-VALUE}).")
+    double submittedRatio;
+
+    @Option(names = "--skip-seed", description = "Не создавать данные, нагружать уже существующие группы и студентов.")
+    boolean skipSeed;
+
+    @Option(names = "--threads", paramLabel = "<n>", defaultValue = "4", description = "Количество потоков нагрузки (по умолчанию ${DEFAULT-VALUE}).")
+    int threads;
+
+    @Option(names = "--warmup", paramLabel = "<sec>", defaultValue = "5", description = "Прогрев без замеров, секунд (по умолчанию ${DEFAULT-VALUE}).")
+    int warmupSeconds;
+
+    @Option(names = "--duration", paramLabel = "<sec>", defaultValue = "30", description = "Длительность замера, секунд (по умолчанию ${DEFAULT-VALUE}).")
+    int durationSeconds;
+
+    @Option(names = "--mix", paramLabel = "<op=weight>", split = ",", defaultValue = "report=15,list-groups=5,list-students=10,list-tasks=30,mark=35,create=5", description = "Веса операций: report, list-groups, list-students, list-tasks, mark, create (по умолчанию ${DEFAULT-VALUE}).")
+    Map<String, Integer> mix;
+
+    @Option(names = "--pool-size", paramLabel = "<n>", description = "Размер пула соединений вместо database.pool.size.")
+    Integer poolSize;
+
+    @Option(names = "--url", paramLabel = "<jdbcUrl>", description = "JDBC URL вместо database.url, например jdbc:h2:mem:load;DB_CLOSE_DELAY=-1.")
+    String url;
+
+    @Option(names = "--backend", paramLabel = "<h2|memory|journal>", description = "Хранилище вместо database.backend: memory отделяет время сервисов от накладных расходов JDBC и H2, journal добавляет к нему журнал на диске.")
+    String backend;
+
+    private GroupService groupService;
+    private StudentService studentService;
+    private TaskService taskService;
+
+    /**
+     * Операции нагрузки; имя совпадает с ключом в --mix
+     */
+    enum Operation {
+        REPORT("report"),
+        LIST_GROUPS("list-groups"),
+        LIST_STUDENTS("list-students"),
+        LIST_TASKS("list-tasks"),
+        MARK("mark"),
+        CREATE("create");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестная операция в --mix: " + key);
+        }
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        // DatabaseManager читает настройки при первом обращении, поэтому переопределения — до него
+        if (url != null) {
+            System.setProperty("database.url", url);
+        }
+        if (backend != null) {
+            System.setProperty("database.backend", backend);
+        }
+        if (poolSize != null) {
+            System.setProperty("database.pool.size", String.valueOf(poolSize));
+        }
+
+        Operation[] schedule = buildSchedule();
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+
+        try {
+            ServiceContext services = ServiceContext.create(dbManager);
+            groupService = services.groupService();
+            studentService = services.studentService();
+            taskService = services.taskService();
+
+            List<UUID> groupIds = new ArrayList<>();
+            List<UUID> studentIds = new ArrayList<>();
+            if (skipSeed) {
+                groupService.getAllGroups().forEach(group -> groupIds.add(group.getId()));
+                studentService.getAllStudents().forEach(student -> studentIds.add(student.getId()));
+            } else {
+                seed(groupIds, studentIds);
+            }
+
+            if (groupIds.isEmpty() || studentIds.isEmpty()) {
+                System.err.println("ОШИБКА: в базе нет групп или студентов для нагрузки");
+                return 1;
+            }
+
+            String storage = switch (dbManager.getBackend()) {
+                case DatabaseManager.BACKEND_MEMORY -> "хранилище в памяти";
+                case DatabaseManager.BACKEND_JOURNAL -> "журнал в " + dbManager.getConfig().getString("journal.dir");
+                default -> String.format("пул %d соединений, %s", dbManager.getConfig().getInt("pool.size"), dbManager.getConfig().getString("url"));
+            };
+            System.out.printf("Нагрузка: %d потоков, прогрев %d с, замер %d с, %s%n", threads, warmupSeconds, durationSeconds, storage);
+
+            Recorder total = run(schedule, groupIds, studentIds);
+            report(total);
+            return 0;
+
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    /**
+     * Раскладывает веса --mix в массив, из которого операция выбирается одним случайным индексом
+     */
+    private Operation[] buildSchedule() {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((key, weight) -> {
+            Operation operation = Operation.of(key);
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("Сумма весов в --mix должна быть положительной");
+        }
+        return schedule.toArray(new Operation[0]);
+    }
+
+    private void seed(List<UUID> groupIds, List<UUID> studentIds) {
+        long start = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int g = 1; g <= groups; g++) {
+            Group group = groupService.createGroup("Нагрузка " + g, (g - 1) % 4 + 1);
+            groupIds.add(group.getId());
+
+            for (int from = 0; from < studentsPerGroup; from += SEED_BATCH_SIZE) {
+                int to = Math.min(from + SEED_BATCH_SIZE, studentsPerGroup);
+                List<String> names = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    names.add("Студент " + g + "-" + (i + 1));
+                }
+
+                List<TaskStatusUpdate> submitted = new ArrayList<>();
+                for (Student student : studentService.createStudents(names, group.getId())) {
+                    studentIds.add(student.getId());
+                    // Доля сдачи убывает от первой задачи к третьей: 1.3, 1.0 и 0.7 от средней
+                    for (int number = 1; number <= 3; number++) {
+                        if (random.nextDouble() < submittedRatio * (1.6 - 0.3 * number)) {
+                            submitted.add(new TaskStatusUpdate(student.getId(), number, TaskStatus.SUBMITTED));
+                        }
+                    }
+                }
+                taskService.updateTaskStatuses(submitted);
+            }
+        }
+
+        System.out.printf("Создано групп: %d, студентов: %d за %.1f с%n",
+                groupIds.size(), studentIds.size(), (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private Recorder run(Operation[] schedule, List<UUID> groupIds, List<UUID> studentIds) throws Exception {
+        long measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+        long deadline = measureFrom + durationSeconds * 1_000_000_000L;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Recorder>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    Recorder recorder = new Recorder();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    long now;
+                    while ((now = System.nanoTime()) < deadline) {
+                        Operation operation = schedule[random.nextInt(schedule.length)];
+                        boolean failed = false;
+                        try {
+                            execute(operation, random, groupIds, studentIds);
+                        } catch (RuntimeException e) {
+                            failed = true;
+                        }
+                        long end = System.nanoTime();
+                        if (now >= measureFrom) {
+                            recorder.record(operation, end - now, failed);
+                        }
+                    }
+                    return recorder;
+                }));
+            }
+
+            Recorder total = new Recorder();
+            for (Future<Recorder> worker : workers) {
+                total.merge(worker.get());
+            }
+            return total;
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random, List<UUID> groupIds, List<UUID> studentIds) {
+        UUID groupId = groupIds.get(random.nextInt(groupIds.size()));
+        UUID studentId = studentIds.get(random.nextInt(studentIds.size()));
+
+        switch (operation) {
+            case REPORT -> groupService.getGroupReport(groupId);
+            case LIST_GROUPS -> groupService.getAllGroupsWithStatistics();
+            case LIST_STUDENTS -> studentService.getStudentsByGroup(groupId);
+            case LIST_TASKS -> studentService.getStudentTasks(studentId);
+            case MARK -> taskService.updateTaskStatus(studentId, random.nextInt(3) + 1,
+                    random.nextBoolean() ? TaskStatus.SUBMITTED : TaskStatus.NOT_SUBMITTED);
+            case CREATE -> studentService.createStudent("Студент нагрузки", groupId);
+        }
+    }
+
+    private void report(Recorder total) {
+        System.out.printf("%n%-14s %9s %10s %9s %9s %9s %9s %7s%n", "операция", "вызовов", "оп/с", "p50, мс", "p90, мс", "p99, мс", "max, мс", "ошибок");
+
+        long allCount = 0;
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            long[] latencies = total.latencies(operation);
+            if (latencies.length == 0) {
+                continue;
+            }
+            Arrays.sort(latencies);
+            long errors = total.errors[operation.ordinal()];
+            allCount += latencies.length;
+            allErrors += errors;
+
+            System.out.printf("%-14s %9d %10.1f %9.2f %9.2f %9.2f %9.2f %7d%n", operation.key, latencies.length,
+                    latencies.length / (double) durationSeconds, percentile(latencies, 0.50), percentile(latencies, 0.90),
+                    percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000.0, errors);
+        }
+
+        System.out.printf("%-14s %9d %10.1f %49d%n", "всего", allCount, allCount / (double) durationSeconds, allErrors);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    /**
+     * Задержки одного потока по операциям в наносекундах; без синхронизации, сливаются после замера
+     */
+    static class Recorder {
+        private final long[][] latencies = new long[Operation.values().length][1024];
+        private final int[] sizes = new int[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+
+        void record(Operation operation, long nanos, boolean failed) {
+            int i = operation.ordinal();
+            if (sizes[i] == latencies[i].length) {
+                latencies[i] = Arrays.copyOf(latencies[i], sizes[i] * 2);
+            }
+            latencies[i][sizes[i]++] = nanos;
+            if (failed) {
+                errors[i]++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < sizes.length; i++) {
+                for (int j = 0; j < other.sizes[i]; j++) {
+                    if (sizes[i] == latencies[i].length) {
+                        latencies[i] = Arrays.copyOf(latencies[i], sizes[i] * 2);
+                    }
+                    latencies[i][sizes[i]++] = other.latencies[i][j];
+                }
+                errors[i] += other.errors[i];
+            }
+        }
+
+        long[] latencies(Operation operation) {
+            return Arrays.copyOf(latencies[operation.ordinal()], sizes[operation.ordinal()]);
+        }
+    }
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new LoadGenerator()).execute(args));
+    }
+}
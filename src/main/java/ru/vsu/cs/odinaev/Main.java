@@ -2,7 +2,7 @@ package ru.vsu.cs.odinaev;
 
 public class Main {
     public static void main(String[] args) {
-        Application app = new Application();
-        app.run(args);
+        Application app = new Application(args);
+        System.exit(app.run(args));
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package ru.vsu.cs.odinaev;
+
+import com.typesafe.config.Config;
+import ru.vsu.cs.odinaev.cache.LruCache;
+import ru.vsu.cs.odinaev.database.DatabaseManager;
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.database.InMemoryStore;
+import ru.vsu.cs.odinaev.database.InMemoryTransactionManager;
+import ru.vsu.cs.odinaev.database.TransactionManager;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.repository.CachingGroupRepository;
+import ru.vsu.cs.odinaev.repository.CachingStudentRepository;
+import ru.vsu.cs.odinaev.repository.GroupRepository;
+import ru.vsu.cs.odinaev.repository.IGroupRepository;
+import ru.vsu.cs.odinaev.repository.IQueryCatalog;
+import ru.vsu.cs.odinaev.repository.IStudentRepository;
+import ru.vsu.cs.odinaev.repository.ITaskRepository;
+import ru.vsu.cs.odinaev.repository.InMemoryGroupRepository;
+import ru.vsu.cs.odinaev.repository.InMemoryStudentRepository;
+import ru.vsu.cs.odinaev.repository.InMemoryTaskRepository;
+import ru.vsu.cs.odinaev.repository.StudentRepository;
+import ru.vsu.cs.odinaev.repository.TaskRepository;
+import ru.vsu.cs.odinaev.service.DiagnosticsService;
+import ru.vsu.cs.odinaev.service.GroupService;
+import ru.vsu.cs.odinaev.service.StudentService;
+import ru.vsu.cs.odinaev.service.TaskService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Связанные между собой сервисы приложения. Один и тот же граф объектов используют
+ * интерактивный CLI ({@link Application}) и генератор нагрузки ({@link LoadGenerator}).
+ */
+public record ServiceContext(GroupService groupService, StudentService studentService,
+                             TaskService taskService, DiagnosticsService diagnosticsService,
+                             ITransactionManager transactionManager) {
+
+    /**
+     * Собирает сервисы поверх хранилища из database.backend: H2 через JDBC, хранилище в памяти или хранилище с журналом.
+     */
+    public static ServiceContext create(DatabaseManager dbManager) {
+        String backend = dbManager.getBackend();
+        Config cacheConfig = dbManager.getConfig().getConfig("cache");
+        return switch (backend) {
+            case DatabaseManager.BACKEND_H2 -> {
+                // Инициализируем репозитории БД
+                GroupRepository groupRepository = new GroupRepository();
+                StudentRepository studentRepository = new StudentRepository();
+                TaskRepository taskRepository = new TaskRepository();
+
+                // Общий шаблон транзакций: сервисы выполняют многошаговые операции атомарно
+                TransactionManager transactionManager = new TransactionManager(dbManager);
+
+                yield create(cacheConfig, groupRepository, studentRepository, taskRepository, transactionManager,
+                        dbManager, List.of(groupRepository, studentRepository, taskRepository));
+            }
+            case DatabaseManager.BACKEND_MEMORY, DatabaseManager.BACKEND_JOURNAL -> {
+                // Репозитории в памяти делят одно хранилище и его транзакции; SQL и пула соединений нет.
+                // Хранилище journal восстанавливается из журнала и журналирует каждую фиксацию
+                InMemoryStore store = backend.equals(DatabaseManager.BACKEND_MEMORY) ? new InMemoryStore() : dbManager.getJournalStore();
+                yield create(cacheConfig, new InMemoryGroupRepository(store), new InMemoryStudentRepository(store),
+                        new InMemoryTaskRepository(store), new InMemoryTransactionManager(store), null, List.of());
+            }
+            default -> throw new IllegalArgumentException("Неизвестное хранилище database.backend: " + backend);
+        };
+    }
+
+    /**
+     * Общая часть: кэши над репозиториями и сервисы. Для хранилища в памяти sqlDatabase = null и каталогов запросов нет.
+     */
+    private static ServiceContext create(Config cacheConfig, IGroupRepository groupRepository,
+                                         IStudentRepository studentRepository, ITaskRepository taskRepository,
+                                         ITransactionManager transactionManager, DatabaseManager sqlDatabase,
+                                         List<IQueryCatalog> catalogs) {
+        // Кэш групп и студентов между сервисами и репозиториями
+        IGroupRepository groups = groupRepository;
+        IStudentRepository students = studentRepository;
+        List<LruCache<?, ?>> caches = new ArrayList<>();
+
+        if (cacheConfig.getBoolean("enabled")) {
+            LruCache<UUID, Group> groupCache = new LruCache<>("groups", cacheConfig.getInt("groups-size"));
+            LruCache<UUID, Student> studentCache = new LruCache<>("students", cacheConfig.getInt("students-size"));
+            groups = new CachingGroupRepository(groupRepository, groupCache, studentCache, transactionManager);
+            students = new CachingStudentRepository(studentRepository, studentCache, transactionManager);
+            caches = List.of(groupCache, studentCache);
+        }
+
+        // Инициализируем сервисы
+        TaskService taskService = new TaskService(taskRepository, transactionManager);
+        GroupService groupService = new GroupService(groups, taskService, transactionManager);
+        StudentService studentService = new StudentService(students, groupService, taskService, transactionManager);
+
+        DiagnosticsService diagnosticsService = new DiagnosticsService(sqlDatabase, catalogs, caches);
+
+        return new ServiceContext(groupService, studentService, taskService, diagnosticsService, transactionManager);
+    }
+}
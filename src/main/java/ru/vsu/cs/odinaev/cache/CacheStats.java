@@ -0,0 +1,24 @@
+package ru.vsu.cs.odinaev.cache;
+
+/**
+ * Снимок счетчиков кэша.
+ *
+ * @param name      имя кэша
+ * @param size      текущее количество записей
+ * @param capacity  максимальное количество записей
+ * @param hits      количество попаданий
+ * @param misses    количество промахов
+ * @param evictions количество вытесненных записей
+ */
+public record CacheStats(String name, int size, int capacity, long hits, long misses, long evictions) {
+
+    /**
+     * Возвращает долю попаданий среди всех обращений.
+     *
+     * @return доля попаданий от 0 до 1
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.vsu.cs.odinaev.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Потокобезопасный кэш ограниченного размера с вытеснением давно не использованных записей (LRU).
+ * Ведет счетчики попаданий, промахов и вытеснений.
+ */
+public class LruCache<K, V> {
+    private final String name;
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(String name, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        // accessOrder = true: get() переносит запись в конец очереди вытеснения
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Optional<V> get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(value);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, entries.size(), capacity, hits, misses, evictions);
+    }
+}
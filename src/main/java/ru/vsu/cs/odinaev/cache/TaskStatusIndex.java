@@ -0,0 +1,296 @@
+package ru.vsu.cs.odinaev.cache;
+
+import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskCompletion;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Битовый индекс статусов задач: для каждой группы студентам назначаются позиции,
+ * и на каждый номер задачи хранится битовое множество сдавших. Счетчики сдачи, списки не сдавших задачу
+ * и фильтр по полной сдаче считаются операциями над битовыми множествами, без обращения к таблице задач.
+ * <p>
+ * Группа загружается одним запросом при первом обращении к ней; группа без задач (в том числе несуществующая)
+ * не кэшируется и загружается при каждом обращении. Изменения статусов применяются после фиксации
+ * транзакции; изменения состава группы сбрасывают ее, и при следующем обращении она загружается заново.
+ * Изменения, пришедшие во время загрузки, повторяются над загруженной группой: все они задают итоговое
+ * состояние, поэтому повтор уже учтенного запросом изменения ничего не портит.
+ */
+public class TaskStatusIndex {
+    private final int tasksCount;
+    private final Function<UUID, List<Task>> loader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<UUID, GroupBitmap> groups = new HashMap<>();
+    // Группа каждого студента загруженных групп
+    private final Map<UUID, UUID> groupOfStudent = new HashMap<>();
+    // Изменения, примененные после начала загрузок, которые еще не закончились
+    private final List<Runnable> changesDuringLoad = new ArrayList<>();
+    private int activeLoads;
+
+    /**
+     * @param tasksCount количество задач у каждого студента, номера от 1 до tasksCount
+     * @param loader     загрузка всех задач студентов группы
+     */
+    public TaskStatusIndex(int tasksCount, Function<UUID, List<Task>> loader) {
+        this.tasksCount = tasksCount;
+        this.loader = loader;
+    }
+
+    /**
+     * Возвращает сдачу задач по всем студентам перечисленных групп.
+     */
+    public TaskCompletion completion(Collection<UUID> groupIds) {
+        int students = 0;
+        int[] submitted = new int[tasksCount];
+        int completedAll = 0;
+
+        for (UUID groupId : groupIds) {
+            GroupBitmap group = group(groupId);
+            lock.readLock().lock();
+            try {
+                students += group.present.cardinality();
+                for (int i = 0; i < tasksCount; i++) {
+                    submitted[i] += group.submitted[i].cardinality();
+                }
+                completedAll += group.completedAll().cardinality();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<Integer> submittedByTask = new ArrayList<>(tasksCount);
+        for (int count : submitted) {
+            submittedByTask.add(count);
+        }
+        return new TaskCompletion(students, submittedByTask, completedAll);
+    }
+
+    /**
+     * Возвращает студентов группы, не сдавших задачу с указанным номером.
+     */
+    public List<UUID> missing(UUID groupId, int taskNumber) {
+        GroupBitmap group = group(groupId);
+        lock.readLock().lock();
+        try {
+            BitSet missing = (BitSet) group.present.clone();
+            missing.andNot(group.submitted[taskNumber - 1]);
+            return group.studentsAt(missing);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает студентов группы, сдавших все задачи.
+     */
+    public List<UUID> completedAll(UUID groupId) {
+        GroupBitmap group = group(groupId);
+        lock.readLock().lock();
+        try {
+            return group.studentsAt(group.completedAll());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Устанавливает статус задачи студента; студенты незагруженных групп пропускаются.
+     */
+    public void setStatus(UUID studentId, int taskNumber, TaskStatus status) {
+        change(() -> applyStatus(studentId, taskNumber, status));
+    }
+
+    public void setStatuses(List<TaskStatusUpdate> updates) {
+        change(() -> updates.forEach(update -> applyStatus(update.studentId(), update.taskNumber(), update.status())));
+    }
+
+    /**
+     * Устанавливает статус задачи с указанным номером всем студентам группы.
+     */
+    public void setGroupStatus(UUID groupId, int taskNumber, TaskStatus status) {
+        change(() -> {
+            GroupBitmap group = groups.get(groupId);
+            if (group != null) {
+                BitSet bits = group.submitted[taskNumber - 1];
+                if (status == TaskStatus.SUBMITTED) {
+                    bits.or(group.present);
+                } else {
+                    bits.clear();
+                }
+            }
+        });
+    }
+
+    public void removeStudent(UUID studentId) {
+        change(() -> {
+            UUID groupId = groupOfStudent.remove(studentId);
+            if (groupId != null) {
+                groups.get(groupId).remove(studentId);
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает группу после изменения ее состава; при следующем обращении она загрузится заново.
+     */
+    public void invalidate(UUID groupId) {
+        change(() -> {
+            GroupBitmap group = groups.remove(groupId);
+            if (group != null) {
+                group.slots.keySet().forEach(groupOfStudent::remove);
+            }
+        });
+    }
+
+    /**
+     * Возвращает количество загруженных групп.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return groups.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyStatus(UUID studentId, int taskNumber, TaskStatus status) {
+        UUID groupId = groupOfStudent.get(studentId);
+        if (groupId != null && taskNumber >= 1 && taskNumber <= tasksCount) {
+            GroupBitmap group = groups.get(groupId);
+            group.submitted[taskNumber - 1].set(group.slots.get(studentId), status == TaskStatus.SUBMITTED);
+        }
+    }
+
+    private void change(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (activeLoads > 0) {
+                changesDuringLoad.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает загруженную группу, при необходимости загружая ее без блокировки индекса.
+     */
+    private GroupBitmap group(UUID groupId) {
+        int replayFrom;
+        lock.writeLock().lock();
+        try {
+            GroupBitmap group = groups.get(groupId);
+            if (group != null) {
+                return group;
+            }
+            replayFrom = changesDuringLoad.size();
+            activeLoads++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        GroupBitmap loaded = null;
+        try {
+            loaded = load(groupId);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // Группа без задач не кэшируется: иначе запросы к несуществующим группам копили бы пустые записи
+                if (loaded != null && !loaded.slots.isEmpty() && !groups.containsKey(groupId)) {
+                    groups.put(groupId, loaded);
+                    loaded.slots.keySet().forEach(studentId -> groupOfStudent.put(studentId, groupId));
+                    changesDuringLoad.subList(replayFrom, changesDuringLoad.size()).forEach(Runnable::run);
+                }
+                if (--activeLoads == 0) {
+                    changesDuringLoad.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        // Повтор изменений мог снова сбросить группу, тогда запрос отвечает по загруженной версии
+        return loaded;
+    }
+
+    private GroupBitmap load(UUID groupId) {
+        GroupBitmap group = new GroupBitmap(tasksCount);
+        for (Task task : loader.apply(groupId)) {
+            int slot = group.add(task.getStudentId());
+            if (task.getStatus() == TaskStatus.SUBMITTED && task.getNumber() >= 1 && task.getNumber() <= tasksCount) {
+                group.submitted[task.getNumber() - 1].set(slot);
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Битовые множества одной группы. Позиции удаленных студентов освобождаются и занимаются заново.
+     */
+    private static final class GroupBitmap {
+        final List<UUID> students = new ArrayList<>();
+        final Map<UUID, Integer> slots = new HashMap<>();
+        final BitSet present = new BitSet();
+        final BitSet[] submitted;
+
+        GroupBitmap(int tasksCount) {
+            submitted = new BitSet[tasksCount];
+            for (int i = 0; i < tasksCount; i++) {
+                submitted[i] = new BitSet();
+            }
+        }
+
+        int add(UUID studentId) {
+            Integer existing = slots.get(studentId);
+            if (existing != null) {
+                return existing;
+            }
+            int slot = present.nextClearBit(0);
+            if (slot == students.size()) {
+                students.add(studentId);
+            } else {
+                students.set(slot, studentId);
+            }
+            slots.put(studentId, slot);
+            present.set(slot);
+            return slot;
+        }
+
+        void remove(UUID studentId) {
+            int slot = slots.remove(studentId);
+            students.set(slot, null);
+            present.clear(slot);
+            for (BitSet bits : submitted) {
+                bits.clear(slot);
+            }
+        }
+
+        BitSet completedAll() {
+            BitSet all = (BitSet) present.clone();
+            for (BitSet bits : submitted) {
+                all.and(bits);
+            }
+            return all;
+        }
+
+        List<UUID> studentsAt(BitSet bits) {
+            List<UUID> result = new ArrayList<>(bits.cardinality());
+            for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+                result.add(students.get(slot));
+            }
+            return result;
+        }
+    }
+}
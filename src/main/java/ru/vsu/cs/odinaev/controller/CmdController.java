@@ -8,108 +8,243 @@ import org.jline.terminal.TerminalBuilder;
 import org.jline.utils.InfoCmp;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
+import ru.vsu.cs.odinaev.cache.CacheStats;
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.metrics.PoolStats;
+import ru.vsu.cs.odinaev.metrics.QueryMetrics;
+import ru.vsu.cs.odinaev.metrics.QueryStats;
+import ru.vsu.cs.odinaev.metrics.StartupTimer;
+import ru.vsu.cs.odinaev.model.BulkUpdateResult;
+import ru.vsu.cs.odinaev.model.DeletionResult;
 import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
+import ru.vsu.cs.odinaev.model.ImportResult;
 import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
 import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskCompletion;
 import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
+import ru.vsu.cs.odinaev.service.DiagnosticsService;
 import ru.vsu.cs.odinaev.service.GroupService;
 import ru.vsu.cs.odinaev.service.StudentService;
 import ru.vsu.cs.odinaev.service.TaskService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * MiniBRS - CLI на основе JLine + Picocli
  * Поддерживает автодополнение, help и обработку кавычек.
+ * Без терминала (ввод из файла или канала) работает в режиме сценария: команды читаются построчно
+ * и выполняются тем же диспетчером picocli без редактора строк.
  */
 @Command(name = "", description = {"MiniBRS — система управления учебными заданиями студентов.", "", "Использование:", "  minibrs <команда> [аргументы]", "", "Для справки по конкретной команде:", "  minibrs help <команда>"}, mixinStandardHelpOptions = true)
 public class CmdController implements Controller {
 
+    private static final String USAGE = "Использование: minibrs [--startup-time] [-f <файл>|-] [--transaction] | minibrs [--startup-time] <команда> [аргументы]";
+
     private final GroupService groupService;
     private final StudentService studentService;
     private final TaskService taskService;
-    private final LineReader reader;
-    private final Terminal terminal;
+    private final DiagnosticsService diagnosticsService;
+    private final ITransactionManager transactionManager;
     private final CommandLine picocli;
-
-    public CmdController(GroupService groupService, StudentService studentService, TaskService taskService) {
+    // Терминал создается только в интерактивном режиме
+    private Terminal terminal;
+    private PrintWriter out;
+    // Обработчик команды сообщил об ошибке (см. fail)
+    private boolean commandFailed;
+
+    public CmdController(GroupService groupService, StudentService studentService, TaskService taskService,
+                         DiagnosticsService diagnosticsService, ITransactionManager transactionManager) {
         this.groupService = groupService;
         this.studentService = studentService;
         this.taskService = taskService;
+        this.diagnosticsService = diagnosticsService;
+        this.transactionManager = transactionManager;
+
+        this.picocli = new CommandLine(this);
+        picocli.setUsageHelpAutoWidth(true);
+        picocli.setUsageHelpLongOptionsMaxWidth(30);
+        picocli.setUsageHelpWidth(100);
+        // Команды регистрируются в run: одиночной команде нужна только она сама
+    }
 
-        try {
-            this.terminal = TerminalBuilder.builder().system(true).dumb(true).build();
-
-            // автодополнение базовых команд
-            Completer completer = new StringsCompleter("create-group", "cg", "list-groups", "lg", "delete-group", "dg", "report-group", "rg", "update-group", "ug", "create-student", "cs", "list-students", "ls", "delete-student", "ds", "update-student", "us", "mark-task", "mt", "list-tasks", "lt", "reset-task", "rt", "help", "exit", "clear");
-
-            this.reader = LineReaderBuilder.builder().terminal(terminal).completer(completer).parser(new DefaultParser()).build();
-
-            this.picocli = new CommandLine(this);
-            picocli.setUsageHelpAutoWidth(true);
-            picocli.setUsageHelpLongOptionsMaxWidth(30);
-            picocli.setUsageHelpWidth(100);
-            picocli.setColorScheme(CommandLine.Help.defaultColorScheme(CommandLine.Help.Ansi.ON));
-
-            // регистрация команд
-            registerSubcommands();
-
-        } catch (Exception e) {
-            throw new RuntimeException("Ошибка инициализации терминала", e);
+    /**
+     * Регистрирует команды в picocli. Модель команды picocli строит рефлексией при регистрации,
+     * а классы picocli не попадают в архив AppCDS, поэтому одиночная команда регистрирует только себя.
+     *
+     * @param only имя или сокращение единственной нужной команды либо null для всех;
+     *             для help и неизвестного имени регистрируются все, чтобы справка и подсказки были полными
+     */
+    private void registerSubcommands(String only) {
+        // сокращения (cg, lg, ...) задаются через aliases в @Command, по одному объекту на команду
+        List<Object> commands = List.of(
+                new CreateGroupCmd(), new ListGroupsCmd(), new DeleteGroupCmd(), new ReportGroupCmd(), new UpdateGroupCmd(),
+                new CreateStudentCmd(), new ImportStudentsCmd(), new ListStudentsCmd(), new DeleteStudentCmd(), new UpdateStudentCmd(),
+                new MarkTaskCmd(), new MarkBulkCmd(), new ListTasksCmd(), new ResetTaskCmd(), new TaskStatsCmd(),
+                // диагностика
+                new ExplainCmd(), new CacheStatsCmd(), new StatsCmd(),
+                // системные
+                new ClearCmd(), new ExitCmd());
+
+        List<Object> selected = commands.stream().filter(command -> only != null && hasName(command, only)).toList();
+        (selected.isEmpty() ? commands : selected).forEach(picocli::addSubcommand);
+        if (selected.isEmpty()) {
+            picocli.addSubcommand("help", new CommandLine.HelpCommand());
         }
     }
 
-    private void registerSubcommands() {
-        picocli.addSubcommand("create-group", new CreateGroupCmd());
-        picocli.addSubcommand("cg", new CreateGroupCmd());
-
-        picocli.addSubcommand("list-groups", new ListGroupsCmd());
-        picocli.addSubcommand("lg", new ListGroupsCmd());
-
-        picocli.addSubcommand("delete-group", new DeleteGroupCmd());
-        picocli.addSubcommand("dg", new DeleteGroupCmd());
-
-        picocli.addSubcommand("report-group", new ReportGroupCmd());
-        picocli.addSubcommand("rg", new ReportGroupCmd());
+    private static boolean hasName(Object command, String name) {
+        Command annotation = command.getClass().getAnnotation(Command.class);
+        return annotation.name().equals(name) || Arrays.asList(annotation.aliases()).contains(name);
+    }
 
-        picocli.addSubcommand("update-group", new UpdateGroupCmd());
-        picocli.addSubcommand("ug", new UpdateGroupCmd());
+    /**
+     * Запускает интерактивный цикл, одиночную команду из аргументов или, если задан файл сценария
+     * или ввод не из терминала, сценарий.
+     *
+     * @return код завершения процесса: 0 — все команды выполнены успешно
+     */
+    public int execute(String[] args) {
+        LaunchOptions options;
+        try {
+            options = LaunchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
 
-        picocli.addSubcommand("create-student", new CreateStudentCmd());
-        picocli.addSubcommand("cs", new CreateStudentCmd());
+        try {
+            return run(options);
+        } finally {
+            if (options.startupReport()) {
+                System.err.println("ВРЕМЯ ЗАПУСКА:");
+                StartupTimer.report().forEach(System.err::println);
+            }
+        }
+    }
 
-        picocli.addSubcommand("list-students", new ListStudentsCmd());
-        picocli.addSubcommand("ls", new ListStudentsCmd());
+    /**
+     * Будет ли запуск с такими аргументами интерактивным (тогда базу стоит открывать заранее, в фоне)
+     */
+    public static boolean isInteractive(String[] args) {
+        try {
+            return LaunchOptions.parse(args).interactive();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-        picocli.addSubcommand("delete-student", new DeleteStudentCmd());
-        picocli.addSubcommand("ds", new DeleteStudentCmd());
+    private int run(LaunchOptions options) {
+        String only = options.command().length > 0 ? options.command()[0] : null;
+        StartupTimer.measure("команды picocli", () -> registerSubcommands(only));
 
-        picocli.addSubcommand("update-student", new UpdateStudentCmd());
-        picocli.addSubcommand("us", new UpdateStudentCmd());
+        if (options.interactive()) {
+            runInteractive();
+            return 0;
+        }
 
-        picocli.addSubcommand("mark-task", new MarkTaskCmd());
-        picocli.addSubcommand("mt", new MarkTaskCmd());
+        if (options.command().length > 0) {
+            useOutput(new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true), CommandLine.Help.Ansi.OFF);
+            boolean succeeded = runCommand(options.command());
+            out.flush();
+            return succeeded ? 0 : 1;
+        }
 
-        picocli.addSubcommand("list-tasks", new ListTasksCmd());
-        picocli.addSubcommand("lt", new ListTasksCmd());
+        if (options.script() == null || options.script().equals("-")) {
+            return runScript(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), options.transactional());
+        }
+        try (BufferedReader input = Files.newBufferedReader(Path.of(options.script()), StandardCharsets.UTF_8)) {
+            return runScript(input, options.transactional());
+        } catch (IOException e) {
+            System.err.println("ОШИБКА чтения сценария: " + e.getMessage());
+            return 2;
+        }
+    }
 
-        picocli.addSubcommand("reset-task", new ResetTaskCmd());
-        picocli.addSubcommand("rt", new ResetTaskCmd());
+    /**
+     * Аргументы запуска: [--startup-time] [-f файл|-] [--transaction] либо [--startup-time] команда [аргументы]
+     */
+    private record LaunchOptions(String script, boolean transactional, boolean startupReport, String[] command) {
+
+        static LaunchOptions parse(String[] args) {
+            String script = null;
+            boolean transactional = false;
+            boolean startupReport = false;
+
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-f", "--file" -> {
+                        if (i + 1 == args.length) {
+                            throw new IllegalArgumentException("Не указан файл сценария");
+                        }
+                        script = args[++i];
+                    }
+                    case "--transaction" -> transactional = true;
+                    case "--startup-time" -> startupReport = true;
+                    default -> {
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("Неизвестный аргумент: " + args[i]);
+                        }
+                        if (script != null || transactional) {
+                            throw new IllegalArgumentException("Команда в аргументах не сочетается с -f и --transaction");
+                        }
+                        return new LaunchOptions(null, false, startupReport, Arrays.copyOfRange(args, i, args.length));
+                    }
+                }
+            }
+            return new LaunchOptions(script, transactional, startupReport, new String[0]);
+        }
 
-        // системные
-        picocli.addSubcommand("clear", new ClearCmd());
-        picocli.addSubcommand("exit", new ExitCmd());
-        picocli.addSubcommand("help", new CommandLine.HelpCommand());
+        boolean interactive() {
+            return script == null && !transactional && command.length == 0 && System.console() != null;
+        }
     }
 
     /**
      * Главный интерактивный цикл
      */
-    public void execute(String[] args) {
+    private void runInteractive() {
+        LineReader reader;
+        try {
+            long start = System.nanoTime();
+            this.terminal = TerminalBuilder.builder().system(true).dumb(true).build();
+            StartupTimer.record("терминал JLine", System.nanoTime() - start);
+
+            // автодополнение базовых команд
+            Completer completer = new StringsCompleter("create-group", "cg", "list-groups", "lg", "delete-group", "dg", "report-group", "rg", "update-group", "ug", "create-student", "cs", "import-students", "is", "list-students", "ls", "delete-student", "ds", "update-student", "us", "mark-task", "mt", "mark-bulk", "mb", "list-tasks", "lt", "reset-task", "rt", "task-stats", "ts", "explain", "cache-stats", "stats", "help", "exit", "clear");
+
+            reader = LineReaderBuilder.builder().terminal(terminal).completer(completer).parser(new DefaultParser()).build();
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка инициализации терминала", e);
+        }
+
+        useOutput(terminal.writer(), CommandLine.Help.Ansi.ON);
         printBanner();
+        StartupTimer.milestone("готов к вводу");
 
         while (true) {
             try {
@@ -118,7 +253,7 @@ public class CmdController implements Controller {
 
                 String trimmed = line.trim();
                 if (trimmed.equalsIgnoreCase("exit") || trimmed.equalsIgnoreCase("quit")) {
-                    terminal.writer().println("До свидания!");
+                    out.println("До свидания!");
                     break;
                 }
 
@@ -130,21 +265,106 @@ public class CmdController implements Controller {
                 try {
                     String[] argv = parseCommandLine(trimmed);
                     if (argv.length > 0) {
-                        picocli.execute(argv);
+                        runCommand(argv);
                     }
                 } catch (Exception inner) {
-                    terminal.writer().println("Ошибка: " + inner.getMessage());
+                    out.println("Ошибка: " + inner.getMessage());
                 }
 
             } catch (UserInterruptException | EndOfFileException e) {
-                terminal.writer().println("\nДо свидания!");
+                out.println("\nДо свидания!");
                 break;
             }
         }
     }
 
+    /**
+     * Выполняет команды сценария по одной на строку; пустые строки и строки с # пропускаются.
+     * С transactional весь сценарий выполняется в одной транзакции и откатывается на первой ошибке,
+     * без него ошибки учитываются, а выполнение продолжается.
+     */
+    private int runScript(BufferedReader input, boolean transactional) {
+        useOutput(new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true), CommandLine.Help.Ansi.OFF);
+
+        List<Long> failedLines = new ArrayList<>();
+        long[] executed = {0};
+        try {
+            Runnable script = () -> {
+                try {
+                    String line;
+                    long lineNumber = 0;
+                    while ((line = input.readLine()) != null) {
+                        lineNumber++;
+                        String trimmed = line.trim();
+                        if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.equalsIgnoreCase("clear")) {
+                            continue;
+                        }
+                        if (trimmed.equalsIgnoreCase("exit") || trimmed.equalsIgnoreCase("quit")) {
+                            break;
+                        }
+
+                        executed[0]++;
+                        if (!runCommand(parseCommandLine(trimmed))) {
+                            failedLines.add(lineNumber);
+                            if (transactional) {
+                                throw new IllegalStateException("строка " + lineNumber + ": команда завершилась с ошибкой, изменения сценария отменены");
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            if (transactional) {
+                transactionManager.run(script);
+            } else {
+                script.run();
+            }
+
+        } catch (RuntimeException e) {
+            out.flush();
+            System.err.println("ОШИБКА сценария: " + e.getMessage());
+            return 1;
+        }
+
+        out.flush();
+        if (!failedLines.isEmpty()) {
+            System.err.printf("Выполнено команд: %d, с ошибками: %d (строки %s)%n", executed[0], failedLines.size(), failedLines);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Выполняет одну команду через picocli.
+     *
+     * @return false, если picocli не разобрал команду или ее обработчик сообщил об ошибке
+     */
+    private boolean runCommand(String[] argv) {
+        commandFailed = false;
+        int exitCode = picocli.execute(argv);
+        StartupTimer.milestone("первая команда выполнена");
+        return exitCode == 0 && !commandFailed;
+    }
+
+    private void useOutput(PrintWriter writer, CommandLine.Help.Ansi ansi) {
+        this.out = writer;
+        picocli.setOut(writer);
+        picocli.setErr(writer);
+        picocli.setColorScheme(CommandLine.Help.defaultColorScheme(ansi));
+    }
+
+    /**
+     * Печатает сообщение об ошибке или подсказку по использованию и отмечает команду как неуспешную
+     */
+    private void fail(String message) {
+        commandFailed = true;
+        out.println(message);
+    }
+
     private void printBanner() {
-        terminal.writer().println("""
+        out.println("""
                 
                 ==========================================
                    MiniBRS — CLI система управления задачами
@@ -158,11 +378,14 @@ public class CmdController implements Controller {
     }
 
     private void clearScreen() {
+        if (terminal == null) {
+            return;
+        }
         try {
             terminal.puts(InfoCmp.Capability.clear_screen);
             terminal.flush();
         } catch (Exception e) {
-            for (int i = 0; i < 50; i++) terminal.writer().println();
+            for (int i = 0; i < 50; i++) out.println();
         }
     }
 
@@ -170,7 +393,7 @@ public class CmdController implements Controller {
     // Подкоманды (улучшенный Help)
     // ===========================
 
-    @Command(name = "create-group", description = "Создать новую учебную группу.", mixinStandardHelpOptions = true, headerHeading = "%nОписание:%n", synopsisHeading = "%nИспользование:%n", descriptionHeading = "%nПодробности:%n", parameterListHeading = "%nПараметры:%n", optionListHeading = "%nОпции:%n", commandListHeading = "%nКоманды:%n", footerHeading = "%nПример:%n%n  create-group \"Программная инженерия\" 3%n")
+    @Command(name = "create-group", aliases = "cg", description = "Создать новую учебную группу.", mixinStandardHelpOptions = true, headerHeading = "%nОписание:%n", synopsisHeading = "%nИспользование:%n", descriptionHeading = "%nПодробности:%n", parameterListHeading = "%nПараметры:%n", optionListHeading = "%nОпции:%n", commandListHeading = "%nКоманды:%n", footerHeading = "%nПример:%n%n  create-group \"Программная инженерия\" 3%n")
     class CreateGroupCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<name>", description = "Название группы.")
         String name;
@@ -183,26 +406,31 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "list-groups", description = "Показать все учебные группы.", mixinStandardHelpOptions = true)
+    @Command(name = "list-groups", aliases = "lg", description = "Показать все учебные группы.", mixinStandardHelpOptions = true, footer = "%nПример:%n  list-groups --limit 50 --after <последний_groupUuid>%n")
     class ListGroupsCmd implements Runnable {
+        @Option(names = "--limit", paramLabel = "<n>", description = "Показать не более n групп (по умолчанию — все).")
+        Integer limit;
+        @Option(names = "--after", paramLabel = "<groupId>", description = "Начать после группы с этим UUID (вместе с --limit).")
+        String after;
+
         @Override
         public void run() {
-            handleListGroups();
+            handleListGroups(limit, after);
         }
     }
 
-    @Command(name = "delete-group", description = "Удалить группу по UUID.", mixinStandardHelpOptions = true, footer = "%nПример:%n  delete-group 123e4567-e89b-12d3-a456-426614174000%n")
+    @Command(name = "delete-group", aliases = "dg", description = "Удалить одну или несколько групп по UUID вместе со студентами и задачами.", mixinStandardHelpOptions = true, footer = "%nПример:%n  delete-group 123e4567-e89b-12d3-a456-426614174000%n")
     class DeleteGroupCmd implements Runnable {
-        @Parameters(index = "0", paramLabel = "<groupId>", description = "UUID группы.")
-        String id;
+        @Parameters(index = "0..*", arity = "1..*", paramLabel = "<groupId>", description = "UUID группы.")
+        List<String> ids;
 
         @Override
         public void run() {
-            handleDeleteGroup(new String[]{id});
+            handleDeleteGroup(ids.toArray(new String[0]));
         }
     }
 
-    @Command(name = "update-group", description = "Обновить название и курс группы.", mixinStandardHelpOptions = true, footer = "%nПример:%n  update-group <uuid> \"Новая группа\" 2%n")
+    @Command(name = "update-group", aliases = "ug", description = "Обновить название и курс группы.", mixinStandardHelpOptions = true, footer = "%nПример:%n  update-group <uuid> \"Новая группа\" 2%n")
     class UpdateGroupCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<groupId>", description = "UUID группы.")
         String id;
@@ -217,7 +445,7 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "report-group", description = "Показать отчёт по группе и прогресс студентов.", mixinStandardHelpOptions = true, footer = "%nПример:%n  report-group <uuid>%n")
+    @Command(name = "report-group", aliases = "rg", description = "Показать отчёт по группе и прогресс студентов.", mixinStandardHelpOptions = true, footer = "%nПример:%n  report-group <uuid>%n")
     class ReportGroupCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<groupId>", description = "UUID группы.")
         String id;
@@ -228,7 +456,7 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "create-student", description = "Создать нового студента в группе.", mixinStandardHelpOptions = true, footer = "%nПример:%n  create-student \"Иван Петров\" <groupUuid>%n")
+    @Command(name = "create-student", aliases = "cs", description = "Создать нового студента в группе.", mixinStandardHelpOptions = true, footer = "%nПример:%n  create-student \"Иван Петров\" <groupUuid>%n")
     class CreateStudentCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<name>", description = "Имя студента.")
         String name;
@@ -241,18 +469,35 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "list-students", description = "Показать всех студентов группы.", mixinStandardHelpOptions = true)
+    @Command(name = "import-students", aliases = "is", description = "Массово загрузить студентов из CSV или JSON файла.", mixinStandardHelpOptions = true, footer = {"%nФормат CSV: имя,группа (группа — UUID или название)", "Формат JSON: [{\"name\": \"...\", \"group\": \"...\"}]", "%nПример:%n  import-students students.csv --batch-size 1000%n"})
+    class ImportStudentsCmd implements Runnable {
+        @Parameters(index = "0", paramLabel = "<file>", description = "Путь к файлу .csv или .json.")
+        String file;
+        @Option(names = "--batch-size", paramLabel = "<size>", defaultValue = "500", description = "Количество студентов в одной транзакции (по умолчанию ${DEFAULT-VALUE}).")
+        int batchSize;
+
+        @Override
+        public void run() {
+            handleImportStudents(file, batchSize);
+        }
+    }
+
+    @Command(name = "list-students", aliases = "ls", description = "Показать всех студентов группы.", mixinStandardHelpOptions = true, footer = "%nПример:%n  list-students <groupUuid> --limit 50 --after <последний_studentUuid>%n")
     class ListStudentsCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<groupId>", description = "UUID группы.")
         String groupId;
+        @Option(names = "--limit", paramLabel = "<n>", description = "Показать не более n студентов (по умолчанию — всех).")
+        Integer limit;
+        @Option(names = "--after", paramLabel = "<studentId>", description = "Начать после студента с этим UUID (вместе с --limit).")
+        String after;
 
         @Override
         public void run() {
-            handleListStudents(new String[]{groupId});
+            handleListStudents(groupId, limit, after);
         }
     }
 
-    @Command(name = "delete-student", description = "Удалить студента по UUID.", mixinStandardHelpOptions = true)
+    @Command(name = "delete-student", aliases = "ds", description = "Удалить студента по UUID.", mixinStandardHelpOptions = true)
     class DeleteStudentCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<studentId>", description = "UUID студента.")
         String studentId;
@@ -263,7 +508,7 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "update-student", description = "Обновить данные студента.", mixinStandardHelpOptions = true, footer = "%nПример:%n  update-student <uuid> \"Новое имя\" <groupUuid>%n")
+    @Command(name = "update-student", aliases = "us", description = "Обновить данные студента.", mixinStandardHelpOptions = true, footer = "%nПример:%n  update-student <uuid> \"Новое имя\" <groupUuid>%n")
     class UpdateStudentCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<studentId>", description = "UUID студента.")
         String id;
@@ -278,7 +523,7 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "mark-task", description = "Отметить задачу как сданную.", mixinStandardHelpOptions = true)
+    @Command(name = "mark-task", aliases = "mt", description = "Отметить задачу как сданную.", mixinStandardHelpOptions = true)
     class MarkTaskCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<studentId>", description = "UUID студента.")
         String studentId;
@@ -291,7 +536,26 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "list-tasks", description = "Показать список задач студента.", mixinStandardHelpOptions = true)
+    @Command(name = "mark-bulk", aliases = "mb", description = "Массово изменить статусы задач в одной транзакции.", mixinStandardHelpOptions = true, footer = {"%nСтатус: SUBMITTED (по умолчанию) или NOT_SUBMITTED", "Файл: по одному studentId,номер[,статус] в строке, # — комментарий", "%nПримеры:%n  mark-bulk <uuid>:1 <uuid>:2:NOT_SUBMITTED%n  mark-bulk -f grades.csv%n  mark-bulk --group <uuid> --task 2%n"})
+    class MarkBulkCmd implements Runnable {
+        @Parameters(index = "0..*", arity = "0..*", paramLabel = "<studentId:номер[:статус]>", description = "Изменения статусов задач.")
+        List<String> updates;
+        @Option(names = {"-f", "--file"}, paramLabel = "<file>", description = "Файл с изменениями статусов.")
+        String file;
+        @Option(names = "--group", paramLabel = "<groupId>", description = "Изменить задачу у всех студентов группы.")
+        String groupId;
+        @Option(names = "--task", paramLabel = "<taskNumber>", description = "Номер задачи для --group.")
+        Integer taskNumber;
+        @Option(names = "--status", paramLabel = "<status>", defaultValue = "SUBMITTED", description = "Статус для --group (по умолчанию ${DEFAULT-VALUE}).")
+        String status;
+
+        @Override
+        public void run() {
+            handleMarkBulk(updates, file, groupId, taskNumber, status);
+        }
+    }
+
+    @Command(name = "list-tasks", aliases = "lt", description = "Показать список задач студента.", mixinStandardHelpOptions = true)
     class ListTasksCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<studentId>", description = "UUID студента.")
         String studentId;
@@ -302,7 +566,7 @@ public class CmdController implements Controller {
         }
     }
 
-    @Command(name = "reset-task", description = "Сбросить статус задачи.", mixinStandardHelpOptions = true)
+    @Command(name = "reset-task", aliases = "rt", description = "Сбросить статус задачи.", mixinStandardHelpOptions = true)
     class ResetTaskCmd implements Runnable {
         @Parameters(index = "0", paramLabel = "<studentId>", description = "UUID студента.")
         String studentId;
@@ -315,6 +579,55 @@ public class CmdController implements Controller {
         }
     }
 
+    @Command(name = "task-stats", aliases = "ts", description = "Показать сдачу задач по группам или курсу и студентов, не сдавших задачу.", mixinStandardHelpOptions = true, footer = {"%nБез групп и --course — по всем группам.", "%nПримеры:%n  task-stats --course 2%n  task-stats <groupUuid> --missing 2%n  task-stats <groupUuid> --complete%n"})
+    class TaskStatsCmd implements Runnable {
+        @Parameters(index = "0..*", arity = "0..*", paramLabel = "<groupId>", description = "UUID группы.")
+        List<String> groupIds;
+        @Option(names = "--course", paramLabel = "<course>", description = "Все группы курса.")
+        Integer course;
+        @Option(names = "--missing", paramLabel = "<taskNumber>", description = "Показать студентов группы, не сдавших задачу.")
+        Integer missingTask;
+        @Option(names = "--complete", description = "Показать студентов группы, сдавших все задачи.")
+        boolean complete;
+
+        @Override
+        public void run() {
+            handleTaskStats(groupIds, course, missingTask, complete);
+        }
+    }
+
+    @Command(name = "explain", description = "Показать планы выполнения H2 для запросов репозиториев.", mixinStandardHelpOptions = true, footer = "%nПример:%n  explain findByGroupId%n")
+    class ExplainCmd implements Runnable {
+        @Parameters(index = "0", arity = "0..1", paramLabel = "<filter>", description = "Часть имени запроса, например StudentRepository или findByStatus.")
+        String filter;
+
+        @Override
+        public void run() {
+            handleExplain(filter);
+        }
+    }
+
+    @Command(name = "cache-stats", description = "Показать счетчики кэша групп и студентов.", mixinStandardHelpOptions = true)
+    class CacheStatsCmd implements Runnable {
+        @Override
+        public void run() {
+            handleCacheStats();
+        }
+    }
+
+    @Command(name = "stats", description = "Показать счетчики SQL-запросов и состояние пула соединений.", mixinStandardHelpOptions = true, footer = "%nПример:%n  stats --limit 5%n")
+    class StatsCmd implements Runnable {
+        @Option(names = "--limit", paramLabel = "<n>", defaultValue = "20", description = "Сколько самых затратных запросов показать (по умолчанию ${DEFAULT-VALUE}).")
+        int limit;
+        @Option(names = "--reset", description = "Обнулить счетчики запросов после вывода.")
+        boolean reset;
+
+        @Override
+        public void run() {
+            handleStats(limit, reset);
+        }
+    }
+
     @Command(name = "clear", description = "Очистить экран.", mixinStandardHelpOptions = true)
     class ClearCmd implements Runnable {
         @Override
@@ -327,7 +640,7 @@ public class CmdController implements Controller {
     class ExitCmd implements Runnable {
         @Override
         public void run() {
-            terminal.writer().println("До свидания!");
+            out.println("До свидания!");
         }
     }
 
@@ -362,7 +675,7 @@ public class CmdController implements Controller {
 
     private void handleCreateGroup(String[] args) {
         if (args.length != 2) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: create-group <название> <курс>");
+            fail("ИСПОЛЬЗОВАНИЕ: create-group <название> <курс>");
             return;
         }
 
@@ -371,100 +684,123 @@ public class CmdController implements Controller {
             int course = Integer.parseInt(args[1]);
 
             Group group = groupService.createGroup(name, course);
-            terminal.writer().println("OK: Создана группа: " + group.getName() + " (ID: " + group.getId() + ")");
+            out.println("OK: Создана группа: " + group.getName() + " (ID: " + group.getId() + ")");
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА создания группы: " + e.getMessage());
+            fail("ОШИБКА создания группы: " + e.getMessage());
         }
     }
 
-    private void handleListGroups() {
+    private void handleListGroups(Integer limit, String after) {
+        if (limit == null && after != null) {
+            fail("ИСПОЛЬЗОВАНИЕ: list-groups [--limit <n> [--after <groupId>]]");
+            return;
+        }
+
         try {
-            List<Group> groups = groupService.getAllGroups();
-            if (groups.isEmpty()) {
-                terminal.writer().println("Группы не найдены");
-                return;
+            int[] printed = {0};
+            Consumer<GroupStatistics> printer = statistics -> {
+                if (printed[0]++ == 0) {
+                    out.println("СПИСОК ГРУПП:");
+                }
+                Group group = statistics.group();
+                out.printf("- %s (Курс %d) - %d студентов, сдано задач: %d/%d [ID: %s]%n", group.getName(), group.getCourseNumber(), statistics.studentsCount(), statistics.submittedTasks(), statistics.totalTasks(), group.getId());
+            };
+
+            if (limit == null) {
+                // Строки печатаются по мере чтения результата, без сборки всего списка
+                groupService.forEachGroupWithStatistics(printer);
+            } else {
+                List<GroupStatistics> page = groupService.getGroupsWithStatisticsPage(after == null ? null : UUID.fromString(after), limit);
+                page.forEach(printer);
+                if (page.size() == limit) {
+                    out.println("Следующая страница: list-groups --limit " + limit + " --after " + page.get(limit - 1).group().getId());
+                }
             }
 
-            terminal.writer().println("СПИСОК ГРУПП:");
-            for (Group group : groups) {
-                int studentCount = studentService.getStudentsCountByGroup(group.getId());
-                terminal.writer().printf("- %s (Курс %d) - %d студентов [ID: %s]%n", group.getName(), group.getCourseNumber(), studentCount, group.getId());
+            if (printed[0] == 0) {
+                out.println(after == null ? "Группы не найдены" : "Больше групп нет");
             }
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА получения списка групп: " + e.getMessage());
+            fail("ОШИБКА получения списка групп: " + e.getMessage());
         }
     }
 
     private void handleDeleteGroup(String[] args) {
-        if (args.length != 1) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: delete-group <groupId>");
+        if (args.length == 0) {
+            fail("ИСПОЛЬЗОВАНИЕ: delete-group <groupId> [<groupId>...]");
             return;
         }
 
         try {
-            UUID id = UUID.fromString(args[0]);
-            Group group = groupService.getGroupById(id);
-            groupService.deleteGroup(id);
-            terminal.writer().println("OK: Удалена группа: " + group.getName());
+            if (args.length == 1) {
+                UUID id = UUID.fromString(args[0]);
+                Group group = groupService.getGroupById(id);
+                DeletionResult result = groupService.deleteGroup(id);
+                out.println("OK: Удалена группа: " + group.getName());
+                out.printf("Удалено студентов: %d, задач: %d%n", result.students(), result.tasks());
+                return;
+            }
+
+            List<UUID> ids = new ArrayList<>();
+            for (String arg : args) {
+                ids.add(UUID.fromString(arg));
+            }
+            DeletionResult result = groupService.deleteGroups(ids);
+            out.printf("OK: Удалено групп: %d, студентов: %d, задач: %d%n", result.groups(), result.students(), result.tasks());
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА удаления группы: " + e.getMessage());
+            fail("ОШИБКА удаления группы: " + e.getMessage());
         }
     }
 
     private void handleGroupReport(String[] args) {
         if (args.length != 1) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: report-group <groupId>");
+            fail("ИСПОЛЬЗОВАНИЕ: report-group <groupId>");
             return;
         }
 
         try {
             UUID id = UUID.fromString(args[0]);
-            List<Object[]> groupReport = groupService.getGroupReport(id);
+            GroupReport groupReport = groupService.getGroupReport(id);
 
-            if (groupReport.isEmpty()) {
-                terminal.writer().println("Группа не найдена или в ней нет студентов");
+            if (groupReport.students().isEmpty()) {
+                out.println("Группа не найдена или в ней нет студентов");
                 return;
             }
 
-            Group group = groupService.getGroupById(id);
-
-            terminal.writer().println("ОТЧЕТ ПО ГРУППЕ: " + group.getName());
-            terminal.writer().println("Курс: " + group.getCourseNumber());
-            terminal.writer().println("Количество студентов: " + groupReport.size());
-            terminal.writer().println();
-
-            int totalCompleted = 0;
-            int totalTasks = groupReport.size() * 3; // Предполагаем, что у каждого студента должно быть 3 задачи
+            Group group = groupReport.group();
 
-            for (Object[] studentWithTasks : groupReport) {
-                Student student = (Student) studentWithTasks[0];
-                List<Task> tasks = (List<Task>) studentWithTasks[1];
+            out.println("ОТЧЕТ ПО ГРУППЕ: " + group.getName());
+            out.println("Курс: " + group.getCourseNumber());
+            out.println("Количество студентов: " + groupReport.studentsCount());
+            out.println();
 
-                int completed = (int) tasks.stream().filter(Task::isSubmitted).count();
+            int totalCompleted = groupReport.totalCompleted();
+            int totalTasks = groupReport.studentsCount() * 3; // Предполагаем, что у каждого студента должно быть 3 задачи
 
-                totalCompleted += completed;
+            for (StudentProgress progressRow : groupReport.students()) {
+                int completed = progressRow.completedTasks();
 
                 String progress = String.format("%d/%d", completed, 3);
                 String status = completed == 3 ? "[ВСЕ СДАНО]" : completed == 0 ? "[НЕ СДАНО]" : "[ЧАСТИЧНО]";
 
-                terminal.writer().printf("- %s: %s задач сдано %s%n", student.getName(), progress, status);
+                out.printf("- %s: %s задач сдано %s%n", progressRow.student().getName(), progress, status);
             }
 
-            terminal.writer().println();
-            terminal.writer().printf("ОБЩАЯ СТАТИСТИКА:%n");
-            terminal.writer().printf("Всего сдано задач: %d/%d (%.1f%%)%n", totalCompleted, totalTasks, (totalCompleted * 100.0 / totalTasks));
+            out.println();
+            out.printf("ОБЩАЯ СТАТИСТИКА:%n");
+            out.printf("Всего сдано задач: %d/%d (%.1f%%)%n", totalCompleted, totalTasks, (totalCompleted * 100.0 / totalTasks));
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА генерации отчета: " + e.getMessage());
+            fail("ОШИБКА генерации отчета: " + e.getMessage());
         }
     }
 
     private void handleUpdateGroup(String[] args) {
         if (args.length != 3) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: update-group <groupId> <новое_название> <новый_курс>");
+            fail("ИСПОЛЬЗОВАНИЕ: update-group <groupId> <новое_название> <новый_курс>");
             return;
         }
 
@@ -474,16 +810,16 @@ public class CmdController implements Controller {
             int newCourse = Integer.parseInt(args[2]);
 
             Group updatedGroup = groupService.updateGroup(groupId, newName, newCourse);
-            terminal.writer().println("OK: Группа обновлена: " + updatedGroup.getName() + " (Курс: " + updatedGroup.getCourseNumber() + ")");
+            out.println("OK: Группа обновлена: " + updatedGroup.getName() + " (Курс: " + updatedGroup.getCourseNumber() + ")");
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА обновления группы: " + e.getMessage());
+            fail("ОШИБКА обновления группы: " + e.getMessage());
         }
     }
 
     private void handleCreateStudent(String[] args) {
         if (args.length != 2) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: create-student <имя> <groupId>");
+            fail("ИСПОЛЬЗОВАНИЕ: create-student <имя> <groupId>");
             return;
         }
 
@@ -492,16 +828,36 @@ public class CmdController implements Controller {
             UUID groupId = UUID.fromString(args[1]);
 
             Student student = studentService.createStudent(name, groupId);
-            terminal.writer().println("OK: Создан студент: " + student.getName() + " (ID: " + student.getId() + ")");
+            out.println("OK: Создан студент: " + student.getName() + " (ID: " + student.getId() + ")");
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА создания студента: " + e.getMessage());
+            fail("ОШИБКА создания студента: " + e.getMessage());
+        }
+    }
+
+    private void handleImportStudents(String file, int batchSize) {
+        try {
+            ImportResult result = studentService.importStudents(Path.of(file), batchSize);
+
+            out.printf("OK: Импортировано студентов: %d из %d строк за %.2f с (%.0f строк/с)%n", result.importedCount(), result.processedCount(), result.elapsedNanos() / 1_000_000_000.0, result.rowsPerSecond());
+
+            List<ImportResult.RejectedRow> rejected = result.rejectedRows();
+            if (!rejected.isEmpty()) {
+                out.println("Отклонено строк: " + rejected.size());
+                rejected.stream().limit(20).forEach(row -> out.printf("- строка %d: %s%n", row.line(), row.reason()));
+                if (rejected.size() > 20) {
+                    out.printf("... и еще %d%n", rejected.size() - 20);
+                }
+            }
+
+        } catch (Exception e) {
+            fail("ОШИБКА импорта студентов: " + e.getMessage());
         }
     }
 
     private void handleDeleteStudent(String[] args) {
         if (args.length != 1) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: delete-student <studentId>");
+            fail("ИСПОЛЬЗОВАНИЕ: delete-student <studentId>");
             return;
         }
 
@@ -509,43 +865,56 @@ public class CmdController implements Controller {
             UUID id = UUID.fromString(args[0]);
             Student student = studentService.getStudentById(id);
             studentService.deleteStudent(id);
-            terminal.writer().println("OK: Удален студент: " + student.getName());
+            out.println("OK: Удален студент: " + student.getName());
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА удаления студента: " + e.getMessage());
+            fail("ОШИБКА удаления студента: " + e.getMessage());
         }
     }
 
-    private void handleListStudents(String[] args) {
-        if (args.length != 1) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: list-students <groupId>");
+    private void handleListStudents(String groupId, Integer limit, String after) {
+        if (limit == null && after != null) {
+            fail("ИСПОЛЬЗОВАНИЕ: list-students <groupId> [--limit <n> [--after <studentId>]]");
             return;
         }
 
         try {
-            UUID id = UUID.fromString(args[0]);
-            List<Student> students = studentService.getStudentsByGroup(id);
+            UUID id = UUID.fromString(groupId);
+            Group group = groupService.getGroupById(id);
 
-            if (students.isEmpty()) {
-                terminal.writer().println("В группе нет студентов");
-                return;
+            // Студенты читаются вместе со своими счетчиками сданных задач, без загрузки задач
+            int[] printed = {0};
+            Consumer<StudentProgress> printer = progress -> {
+                if (printed[0]++ == 0) {
+                    out.println("СТУДЕНТЫ ГРУППЫ " + group.getName() + ":");
+                }
+                Student student = progress.student();
+                out.printf("- %s [Сдано: %d/%d] [ID: %s]%n", student.getName(), progress.completedTasks(), progress.totalTasks(), student.getId());
+            };
+
+            if (limit == null) {
+                // Строки печатаются по мере чтения результата, без сборки всего списка
+                studentService.forEachStudentProgress(id, printer);
+            } else {
+                List<StudentProgress> page = studentService.getStudentProgressPage(id, after == null ? null : UUID.fromString(after), limit);
+                page.forEach(printer);
+                if (page.size() == limit) {
+                    out.println("Следующая страница: list-students " + id + " --limit " + limit + " --after " + page.get(limit - 1).student().getId());
+                }
             }
 
-            Group group = groupService.getGroupById(id);
-            terminal.writer().println("СТУДЕНТЫ ГРУППЫ " + group.getName() + ":");
-            for (Student student : students) {
-                int completed = taskService.getCompletedTasksCount(student.getId());
-                terminal.writer().printf("- %s [Сдано: %d/3] [ID: %s]%n", student.getName(), completed, student.getId());
+            if (printed[0] == 0) {
+                out.println(after == null ? "В группе нет студентов" : "Больше студентов нет");
             }
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА получения списка студентов: " + e.getMessage());
+            fail("ОШИБКА получения списка студентов: " + e.getMessage());
         }
     }
 
     private void handleUpdateStudent(String[] args) {
         if (args.length != 3) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: update-student <studentId> <новое_имя> <groupId>");
+            fail("ИСПОЛЬЗОВАНИЕ: update-student <studentId> <новое_имя> <groupId>");
             return;
         }
 
@@ -555,16 +924,16 @@ public class CmdController implements Controller {
             UUID newGroupId = UUID.fromString(args[2]);
 
             Student updatedStudent = studentService.updateStudent(studentId, newName, newGroupId);
-            terminal.writer().println("OK: Студент обновлен: " + updatedStudent.getName());
+            out.println("OK: Студент обновлен: " + updatedStudent.getName());
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА обновления студента: " + e.getMessage());
+            fail("ОШИБКА обновления студента: " + e.getMessage());
         }
     }
 
     private void handleMarkTask(String[] args) {
         if (args.length != 2) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: mark-task <studentId> <номер_задачи>");
+            fail("ИСПОЛЬЗОВАНИЕ: mark-task <studentId> <номер_задачи>");
             return;
         }
 
@@ -573,24 +942,212 @@ public class CmdController implements Controller {
             int taskNumber = Integer.parseInt(args[1]);
 
             if (taskNumber < 1 || taskNumber > 3) {
-                terminal.writer().println("ОШИБКА: Номер задачи должен быть от 1 до 3");
+                fail("ОШИБКА: Номер задачи должен быть от 1 до 3");
+                return;
+            }
+
+            TaskStatusChange change = taskService.updateTaskStatus(studentId, taskNumber, TaskStatus.SUBMITTED);
+            out.println("OK: Задача " + taskNumber + " отмечена как сданная для студента: " + change.studentName());
+
+        } catch (Exception e) {
+            fail("ОШИБКА отметки задачи: " + e.getMessage());
+        }
+    }
+
+    private void handleMarkBulk(List<String> updates, String file, String groupId, Integer taskNumber, String status) {
+        boolean hasUpdates = (updates != null && !updates.isEmpty()) || file != null;
+
+        try {
+            if (groupId != null) {
+                if (taskNumber == null || hasUpdates) {
+                    fail("ИСПОЛЬЗОВАНИЕ: mark-bulk --group <groupId> --task <номер_задачи> [--status <статус>]");
+                    return;
+                }
+
+                Group group = groupService.getGroupById(UUID.fromString(groupId));
+                BulkUpdateResult result = taskService.updateGroupTaskStatus(group.getId(), taskNumber, taskService.parseStatus(status));
+                out.printf("OK: Группа %s, задача %d: изменено задач: %d за %.1f мс%n", group.getName(), taskNumber, result.updatedCount(), result.elapsedNanos() / 1_000_000.0);
                 return;
             }
 
-            Task task = taskService.getTaskByStudentAndNumber(studentId, taskNumber);
-            taskService.updateTaskStatus(task.getId(), TaskStatus.SUBMITTED);
+            if (!hasUpdates) {
+                fail("ИСПОЛЬЗОВАНИЕ: mark-bulk <studentId:номер[:статус]>... | -f <файл> | --group <groupId> --task <номер_задачи>");
+                return;
+            }
 
-            Student student = studentService.getStudentById(studentId);
-            terminal.writer().println("OK: Задача " + taskNumber + " отмечена как сданная для студента: " + student.getName());
+            List<TaskStatusUpdate> parsed = new ArrayList<>();
+            if (updates != null) {
+                for (String update : updates) {
+                    parsed.add(taskService.parseStatusUpdate(update));
+                }
+            }
+            if (file != null) {
+                parsed.addAll(taskService.readStatusUpdates(Path.of(file)));
+            }
+
+            BulkUpdateResult result = taskService.updateTaskStatuses(parsed);
+            out.printf("OK: Изменено задач: %d из %d за %.1f мс%n", result.updatedCount(), result.requestedCount(), result.elapsedNanos() / 1_000_000.0);
+            if (result.unchangedCount() > 0) {
+                out.println("Без изменений (статус уже установлен или задача не найдена): " + result.unchangedCount());
+            }
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА отметки задачи: " + e.getMessage());
+            fail("ОШИБКА массовой отметки задач: " + e.getMessage());
+        }
+    }
+
+    private void handleTaskStats(List<String> groupIdArgs, Integer course, Integer missingTask, boolean complete) {
+        List<String> ids = groupIdArgs == null ? List.of() : groupIdArgs;
+
+        try {
+            if (missingTask != null || complete) {
+                if (ids.size() != 1 || course != null || (missingTask != null && complete)) {
+                    fail("ИСПОЛЬЗОВАНИЕ: task-stats <groupId> --missing <номер_задачи> | task-stats <groupId> --complete");
+                    return;
+                }
+
+                Group group = groupService.getGroupById(UUID.fromString(ids.get(0)));
+                long start = System.nanoTime();
+                List<UUID> studentIds = complete
+                        ? taskService.getStudentsWithAllTasks(group.getId())
+                        : taskService.getStudentsMissingTask(group.getId(), missingTask);
+                long elapsed = System.nanoTime() - start;
+
+                String title = complete ? "СДАЛИ ВСЕ ЗАДАЧИ" : "НЕ СДАЛИ ЗАДАЧУ " + missingTask;
+                out.printf("%s В ГРУППЕ %s: %d%n", title, group.getName(), studentIds.size());
+                Map<UUID, Student> students = studentService.getStudentsByGroup(group.getId()).stream()
+                        .collect(Collectors.toMap(Student::getId, Function.identity()));
+                for (UUID studentId : studentIds) {
+                    Student student = students.get(studentId);
+                    out.printf("- %s [ID: %s]%n", student == null ? "?" : student.getName(), studentId);
+                }
+                out.printf("Выборка по индексу: %.1f мкс%n", elapsed / 1_000.0);
+                return;
+            }
+
+            if (!ids.isEmpty() && course != null) {
+                fail("ИСПОЛЬЗОВАНИЕ: task-stats [<groupId>...] | task-stats --course <курс>");
+                return;
+            }
+
+            List<UUID> groupIds = new ArrayList<>();
+            if (ids.isEmpty()) {
+                for (Group group : groupService.getAllGroups()) {
+                    if (course == null || group.getCourseNumber() == course) {
+                        groupIds.add(group.getId());
+                    }
+                }
+            } else {
+                for (String id : ids) {
+                    groupIds.add(groupService.getGroupById(UUID.fromString(id)).getId());
+                }
+            }
+            if (groupIds.isEmpty()) {
+                out.println("Группы не найдены");
+                return;
+            }
+
+            long start = System.nanoTime();
+            TaskCompletion completion = taskService.getTaskCompletion(groupIds);
+            long elapsed = System.nanoTime() - start;
+
+            out.printf("СДАЧА ЗАДАЧ%s: групп %d, студентов %d%n", course == null ? "" : " (Курс " + course + ")", groupIds.size(), completion.studentsCount());
+            for (int number = 1; number <= completion.submittedByTask().size(); number++) {
+                out.printf("- Задача %d: %d/%d (%.1f%%)%n", number, completion.submittedByTask().get(number - 1), completion.studentsCount(), completion.submittedRate(number) * 100);
+            }
+            out.printf("Сдали все задачи: %d/%d (%.1f%%)%n", completion.completedAllCount(), completion.studentsCount(), completion.completedAllRate() * 100);
+            out.printf("Подсчет по индексу: %.1f мкс%n", elapsed / 1_000.0);
+
+        } catch (Exception e) {
+            fail("ОШИБКА получения статистики задач: " + e.getMessage());
+        }
+    }
+
+    private void handleExplain(String filter) {
+        try {
+            Map<String, String> plans = diagnosticsService.explainQueries(filter);
+            if (plans.isEmpty()) {
+                out.println("Запросы не найдены");
+                return;
+            }
+
+            plans.forEach((name, plan) -> {
+                out.println("== " + name);
+                out.println(plan);
+            });
+
+        } catch (Exception e) {
+            fail("ОШИБКА получения плана запроса: " + e.getMessage());
+        }
+    }
+
+    private void handleStats(int limit, boolean reset) {
+        try {
+            Optional<PoolStats> pool = diagnosticsService.getPoolStats();
+            if (pool.isEmpty()) {
+                out.println("Счетчики SQL-запросов и пул соединений: н/д (database.backend = memory или journal)");
+                return;
+            }
+
+            Map<String, QueryStats> stats = diagnosticsService.getQueryStats();
+
+            out.println("СТАТИСТИКА ЗАПРОСОВ (по суммарному времени):");
+            out.printf("%8s %10s %9s %9s %8s  %s%n", "вызовов", "всего, мс", "сред., мс", "макс., мс", "строк", "запрос");
+            stats.entrySet().stream().limit(limit).forEach(entry -> {
+                QueryStats query = entry.getValue();
+                out.printf("%8d %10.1f %9.3f %9.3f %8d  %s%n", query.count(), query.totalNanos() / 1_000_000.0, query.avgNanos() / 1_000_000.0, query.maxNanos() / 1_000_000.0, query.rows(), entry.getKey());
+                out.println("         " + formatHistogram(query.histogram()));
+            });
+            if (stats.size() > limit) {
+                out.printf("... и еще %d запросов%n", stats.size() - limit);
+            }
+
+            if (reset) {
+                diagnosticsService.resetQueryStats();
+                out.println("OK: Счетчики запросов обнулены");
+            }
+
+            PoolStats connections = pool.get();
+            out.printf("ПУЛ СОЕДИНЕНИЙ: активных %d, свободных %d, ожидают %d, всего %d/%d%n", connections.active(), connections.idle(), connections.pending(), connections.total(), connections.max());
+
+        } catch (Exception e) {
+            fail("ОШИБКА получения статистики запросов: " + e.getMessage());
+        }
+    }
+
+    private String formatHistogram(List<Long> histogram) {
+        long[] bounds = QueryMetrics.HISTOGRAM_BOUNDS_MICROS;
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < histogram.size(); i++) {
+            if (histogram.get(i) == 0) {
+                continue;
+            }
+            String bucket = i < bounds.length ? "≤" + formatMillis(bounds[i]) : ">" + formatMillis(bounds[bounds.length - 1]);
+            line.append(line.isEmpty() ? "" : ", ").append(bucket).append(" мс: ").append(histogram.get(i));
+        }
+        return line.toString();
+    }
+
+    private String formatMillis(long micros) {
+        return micros % 1000 == 0 ? String.valueOf(micros / 1000) : String.valueOf(micros / 1000.0);
+    }
+
+    private void handleCacheStats() {
+        List<CacheStats> stats = diagnosticsService.getCacheStats();
+        if (stats.isEmpty()) {
+            out.println("Кэш отключен (database.cache.enabled = false)");
+            return;
+        }
+
+        out.println("СТАТИСТИКА КЭША:");
+        for (CacheStats cache : stats) {
+            out.printf("- %s: %d/%d записей, попаданий: %d, промахов: %d (%.1f%%), вытеснено: %d%n", cache.name(), cache.size(), cache.capacity(), cache.hits(), cache.misses(), cache.hitRate() * 100, cache.evictions());
         }
     }
 
     private void handleListTasks(String[] args) {
         if (args.length != 1) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: list-tasks <studentId>");
+            fail("ИСПОЛЬЗОВАНИЕ: list-tasks <studentId>");
             return;
         }
 
@@ -599,23 +1156,26 @@ public class CmdController implements Controller {
             Student student = studentService.getStudentById(id);
             List<Task> tasks = taskService.getTasksByStudent(id);
 
-            terminal.writer().println("ЗАДАЧИ СТУДЕНТА " + student.getName() + ":");
+            out.println("ЗАДАЧИ СТУДЕНТА " + student.getName() + ":");
+            int completed = 0;
             for (Task task : tasks) {
-                String status = task.getStatus() == TaskStatus.SUBMITTED ? "СДАНО" : "НЕ СДАНО";
-                terminal.writer().printf("- Задача %d: %s%n", task.getNumber(), status);
+                boolean submitted = task.getStatus() == TaskStatus.SUBMITTED;
+                if (submitted) {
+                    completed++;
+                }
+                out.printf("- Задача %d: %s%n", task.getNumber(), submitted ? "СДАНО" : "НЕ СДАНО");
             }
 
-            int completed = taskService.getCompletedTasksCount(id);
-            terminal.writer().printf("ИТОГО: %d/3 задач сдано%n", completed);
+            out.printf("ИТОГО: %d/%d задач сдано%n", completed, tasks.size());
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА получения списка задач: " + e.getMessage());
+            fail("ОШИБКА получения списка задач: " + e.getMessage());
         }
     }
 
     private void handleResetTask(String[] args) {
         if (args.length != 2) {
-            terminal.writer().println("ИСПОЛЬЗОВАНИЕ: reset-task <studentId> <номер_задачи>");
+            fail("ИСПОЛЬЗОВАНИЕ: reset-task <studentId> <номер_задачи>");
             return;
         }
 
@@ -624,18 +1184,15 @@ public class CmdController implements Controller {
             int taskNumber = Integer.parseInt(args[1]);
 
             if (taskNumber < 1 || taskNumber > 3) {
-                terminal.writer().println("ОШИБКА: Номер задачи должен быть от 1 до 3");
+                fail("ОШИБКА: Номер задачи должен быть от 1 до 3");
                 return;
             }
 
-            Task task = taskService.getTaskByStudentAndNumber(studentId, taskNumber);
-            taskService.updateTaskStatus(task.getId(), TaskStatus.NOT_SUBMITTED);
-
-            Student student = studentService.getStudentById(studentId);
-            terminal.writer().println("OK: Статус задачи " + taskNumber + " сброшен для студента: " + student.getName());
+            TaskStatusChange change = taskService.updateTaskStatus(studentId, taskNumber, TaskStatus.NOT_SUBMITTED);
+            out.println("OK: Статус задачи " + taskNumber + " сброшен для студента: " + change.studentName());
 
         } catch (Exception e) {
-            terminal.writer().println("ОШИБКА сброса задачи: " + e.getMessage());
+            fail("ОШИБКА сброса задачи: " + e.getMessage());
         }
     }
 }
@@ -4,26 +4,112 @@ import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import ru.vsu.cs.odinaev.metrics.PoolStats;
+import ru.vsu.cs.odinaev.metrics.QueryMetrics;
+import ru.vsu.cs.odinaev.metrics.StartupTimer;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 public class DatabaseManager {
-    private final HikariDataSource dataSource;
+    // Пул соединений с примененными миграциями; создается при первом обращении или заранее в фоне
+    private volatile CompletableFuture<HikariDataSource> dataSource;
+    // Соединение открытой транзакции текущего потока (см. TransactionManager)
+    private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+    private final ThreadLocal<List<Runnable>> rollbackActions = new ThreadLocal<>();
+    private final ThreadLocal<List<Runnable>> commitActions = new ThreadLocal<>();
+    private final Config config;
+    // Веб-консоль H2 (только при database.console.enabled); ее поток не демон и держит JVM до close()
+    private volatile org.h2.tools.Server console;
+    // Хранилище с журналом для database.backend = journal; открывается при первом обращении
+    private Journal journal;
+    private InMemoryStore journalStore;
+    // Счетчики запросов; null, если database.metrics.enabled = false
+    private final QueryMetrics queryMetrics;
+    // Миграции схемы по порядку версий; примененные миграции изменять нельзя
+    private static final List<Migration> MIGRATIONS = List.of(
+            new SqlMigration(1, "initial schema", "db/migration/V1__initial_schema.sql"),
+            new UuidColumnsMigration(),
+            new SqlMigration(3, "hot path indexes", "db/migration/V3__hot_path_indexes.sql"),
+            new SqlMigration(4, "progress counters", "db/migration/V4__progress_counters.sql"),
+            new SqlMigration(5, "keyset pagination indexes", "db/migration/V5__keyset_pagination_indexes.sql")
+    );
     private static final DatabaseManager INSTANCE = new DatabaseManager();
 
+    // Значения database.backend
+    public static final String BACKEND_H2 = "h2";
+    public static final String BACKEND_MEMORY = "memory";
+    public static final String BACKEND_JOURNAL = "journal";
+
     private DatabaseManager() {
-        Config config = ConfigFactory.parseResources("database.conf").getConfig("database");
-        this.dataSource = createDataSource(config);
-        startH2Console();
-        initializeDatabase();
+        // Системные свойства (-Ddatabase.url=...) переопределяют database.conf, например для бенчмарков
+        this.config = ConfigFactory.systemProperties()
+                .withFallback(ConfigFactory.parseResources("database.conf"))
+                .resolve()
+                .getConfig("database");
+        this.queryMetrics = createQueryMetrics(config);
     }
 
     public static DatabaseManager getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * Возвращает блок настроек database из database.conf.
+     */
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * Возвращает хранилище репозиториев из database.backend: {@link #BACKEND_H2}, {@link #BACKEND_MEMORY}
+     * или {@link #BACKEND_JOURNAL}. Для хранилищ в памяти пул соединений и миграции не создаются.
+     */
+    public String getBackend() {
+        return config.getString("backend");
+    }
+
+    /**
+     * Возвращает количество строк, которое потоковые выборки репозиториев запрашивают у драйвера за раз
+     * (database.fetch-size).
+     */
+    public int getFetchSize() {
+        return config.getInt("fetch-size");
+    }
+
+    /**
+     * Возвращает хранилище в памяти, восстановленное из снимка и журнала в database.journal.dir.
+     * Все его изменения журналируются; журнал закрывается в {@link #close()}.
+     */
+    public synchronized InMemoryStore getJournalStore() {
+        if (journalStore == null) {
+            Config journalConfig = config.getConfig("journal");
+            journal = Journal.open(Path.of(journalConfig.getString("dir")), journalConfig.getBytes("file-size"),
+                    journalConfig.getBoolean("fsync"), journalConfig.getBytes("snapshot-threshold"));
+            journalStore = StartupTimer.measure("восстановление журнала", journal::recover);
+        }
+        return journalStore;
+    }
+
+    private QueryMetrics createQueryMetrics(Config config) {
+        Config metricsConfig = config.getConfig("metrics");
+        if (!metricsConfig.getBoolean("enabled")) {
+            return null;
+        }
+        return new QueryMetrics(metricsConfig.getLong("slow-query-ms"));
+    }
+
     private HikariDataSource createDataSource(Config config) {
         HikariConfig hikariConfig = new HikariConfig();
 
@@ -38,78 +124,258 @@ public class DatabaseManager {
         hikariConfig.setIdleTimeout(poolConfig.getLong("idle-timeout"));
         hikariConfig.setMaxLifetime(poolConfig.getLong("max-lifetime"));
 
+        // H2 хранит разобранные запросы в сессии по тексту SQL: повторный prepareStatement на том же
+        // соединении пула не разбирает и не планирует запрос заново. По умолчанию кэш на 8 запросов,
+        // а репозитории используют несколько десятков, поэтому размер берется из конфигурации
+        hikariConfig.addDataSourceProperty("QUERY_CACHE_SIZE", poolConfig.getInt("statement-cache-size"));
+
         return new HikariDataSource(hikariConfig);
     }
 
-    private void initializeDatabase() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
+    /**
+     * Начинает создание пула и миграции в фоновом потоке, не дожидаясь их.
+     * Первый запрос дождется окончания инициализации; без этого вызова она выполнится при первом запросе.
+     */
+    public void initializeAsync() {
+        initialization(true);
+    }
 
-            // Создаем таблицы
-            createTables(stmt);
+    private CompletableFuture<HikariDataSource> initialization(boolean async) {
+        CompletableFuture<HikariDataSource> current = dataSource;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (dataSource == null) {
+                CompletableFuture<HikariDataSource> future = new CompletableFuture<>();
+                dataSource = future;
+                if (async) {
+                    Thread thread = new Thread(() -> complete(future), "minibrs-db-init");
+                    thread.setDaemon(true);
+                    thread.start();
+                } else {
+                    complete(future);
+                }
+            }
+            return dataSource;
+        }
+    }
 
-        } catch (SQLException e) {
+    private void complete(CompletableFuture<HikariDataSource> future) {
+        try {
+            future.complete(initializeDatabase());
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private HikariDataSource initializeDatabase() {
+        HikariDataSource ds = StartupTimer.measure("пул соединений H2", () -> createDataSource(config));
+
+        try (Connection conn = ds.getConnection()) {
+
+            // Приводим схему к последней версии (без DDL, если она актуальна)
+            long start = System.nanoTime();
+            new MigrationRunner(MIGRATIONS).migrate(conn);
+            StartupTimer.record("миграции", System.nanoTime() - start);
+
+        } catch (SQLException | RuntimeException e) {
+            ds.close();
             throw new RuntimeException("Database initialization failed", e);
         }
+
+        Config consoleConfig = config.getConfig("console");
+        if (consoleConfig.getBoolean("enabled")) {
+            this.console = StartupTimer.measure("консоль H2", () -> startH2Console(consoleConfig.getInt("port")));
+        }
+        return ds;
     }
 
-    private void createTables(Statement stmt) throws SQLException {
-        // Таблица групп
-        String createGroupsTable = """
-        CREATE TABLE IF NOT EXISTS groups (
-            id VARCHAR(36) PRIMARY KEY,
-            name VARCHAR(100) NOT NULL,
-            course_number INT NOT NULL,
-            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-        )
-        """;
-        stmt.execute(createGroupsTable);
-
-        // Таблица студентов
-        String createStudentsTable = """
-        CREATE TABLE IF NOT EXISTS students (
-            id VARCHAR(36) PRIMARY KEY,
-            name VARCHAR(100) NOT NULL,
-            group_id VARCHAR(36) NOT NULL,
-            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-            FOREIGN KEY (group_id) REFERENCES groups(id) ON DELETE CASCADE
-        )
-        """;
-        stmt.execute(createStudentsTable);
-
-        // Таблица задач
-        String createTasksTable = """
-        CREATE TABLE IF NOT EXISTS tasks (
-            id VARCHAR(36) PRIMARY KEY,
-            student_id VARCHAR(36) NOT NULL,
-            number INT NOT NULL,
-            status VARCHAR(20) NOT NULL CHECK (status IN ('SUBMITTED', 'NOT_SUBMITTED')),
-            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-            FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE,
-            UNIQUE (student_id, number)
-        )
-        """;
-        stmt.execute(createTasksTable);
+    /**
+     * Возвращает пул соединений, при необходимости дожидаясь инициализации базы.
+     */
+    private HikariDataSource dataSource() {
+        try {
+            return initialization(false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
+
+    /**
+     * Возвращает соединение из пула. Внутри транзакции {@link TransactionManager} возвращает
+     * соединение текущей транзакции, закрытие которого ничего не делает.
+     */
     public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return nonClosing(bound);
+        }
+        return acquire();
+    }
+
+    /**
+     * Берет соединение из пула и, если метрики включены, оборачивает его для замера запросов.
+     */
+    private Connection acquire() throws SQLException {
+        Connection conn = dataSource().getConnection();
+        return queryMetrics == null ? conn : queryMetrics.wrap(conn);
+    }
+
+    /**
+     * Возвращает счетчики запросов или null, если метрики отключены в database.conf.
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Возвращает текущее состояние пула соединений.
+     */
+    public PoolStats getPoolStats() {
+        HikariDataSource ds = dataSource();
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        return new PoolStats(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(), pool.getTotalConnections(), ds.getMaximumPoolSize());
+    }
+
+    /**
+     * Выполняет работу в одной транзакции: все репозитории внутри нее используют
+     * одно соединение, фиксация выполняется один раз в конце.
+     * Вложенный вызов присоединяется к уже открытой транзакции.
+     */
+    <T> T inTransaction(Supplier<T> work) {
+        if (transactionConnection.get() != null) {
+            return work.get();
+        }
+
+        T result;
+        List<Runnable> afterCommit = new ArrayList<>();
+        try (Connection conn = acquire()) {
+            conn.setAutoCommit(false);
+            transactionConnection.set(conn);
+            rollbackActions.set(new ArrayList<>());
+            commitActions.set(afterCommit);
+            try {
+                result = work.get();
+                conn.commit();
+            } catch (SQLException | RuntimeException | Error e) {
+                conn.rollback();
+                rollbackActions.get().forEach(Runnable::run);
+                throw e;
+            } finally {
+                transactionConnection.remove();
+                rollbackActions.remove();
+                commitActions.remove();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Transaction failed", e);
+        }
+
+        // Соединение уже возвращено в пул: действия после фиксации могут сами обращаться к базе
+        afterCommit.forEach(Runnable::run);
+        return result;
+    }
+
+    /**
+     * Возвращает план выполнения запроса (EXPLAIN) в том виде, в котором его строит H2.
+     * Параметры запроса можно не задавать.
+     */
+    public String explain(String sql) {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append(System.lineSeparator());
+            }
+            return plan.toString();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to explain query", e);
+        }
+    }
+
+    boolean isInTransaction() {
+        return transactionConnection.get() != null;
+    }
+
+    void onRollback(Runnable action) {
+        List<Runnable> actions = rollbackActions.get();
+        if (actions != null) {
+            actions.add(action);
+        }
+    }
+
+    void afterCommit(Runnable action) {
+        List<Runnable> actions = commitActions.get();
+        if (actions != null) {
+            actions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private static Connection nonClosing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
     }
 
     public void close() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
+        synchronized (this) {
+            if (journalStore != null) {
+                // Снимок при закрытии: следующий запуск не повторяет журнал
+                journalStore.checkpoint();
+                journal.close();
+                journalStore = null;
+            }
+        }
+
+        CompletableFuture<HikariDataSource> future = dataSource;
+        if (future == null) {
+            // База так и не понадобилась — закрывать нечего
+            return;
+        }
+
+        HikariDataSource ds;
+        try {
+            ds = future.join();
+        } catch (CompletionException e) {
+            return;
+        }
+        if (console != null) {
+            console.stop();
+        }
+        if (!ds.isClosed()) {
+            ds.close();
         }
     }
 
     //Для отладки
-    private void startH2Console() {
+    private org.h2.tools.Server startH2Console(int port) {
         try {
-            // Запускаем H2 Console на порту 8082
-            org.h2.tools.Server.createWebServer("-web", "-webAllowOthers", "-webPort", "8082").start();
-            System.out.println("H2 Console available at: http://localhost:8082");
+            org.h2.tools.Server server = org.h2.tools.Server.createWebServer("-web", "-webAllowOthers", "-webPort", String.valueOf(port)).start();
+            System.out.println("H2 Console available at: http://localhost:" + port);
+            return server;
         } catch (SQLException e) {
             System.err.println("Failed to start H2 Console: " + e.getMessage());
+            return null;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.util.function.Supplier;
+
+/**
+ * Шаблон транзакции (unit of work) для сервисов.
+ * Все обращения к репозиториям внутри execute/run выполняются в одной транзакции
+ * на одном соединении и фиксируются один раз. Исключение откатывает всю работу.
+ * Вложенные вызовы присоединяются к внешней транзакции.
+ */
+public interface ITransactionManager {
+    <T> T execute(Supplier<T> work);
+
+    default void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    boolean isActive();
+
+    /**
+     * Регистрирует действие, выполняемое при откате текущей транзакции
+     * (например, сброс кэша, заполненного внутри нее). Вне транзакции ничего не делает.
+     */
+    void onRollback(Runnable action);
+
+    /**
+     * Регистрирует действие, выполняемое после фиксации текущей транзакции
+     * (например, обновление производных данных в памяти). Вне транзакции выполняет его сразу.
+     */
+    void afterCommit(Runnable action);
+}
@@ -0,0 +1,595 @@
+package ru.vsu.cs.odinaev.database;
+
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище в памяти процесса для database.backend = memory: таблицы групп, студентов и задач
+ * с индексами по группе, по студенту и по паре (студент, номер задачи).
+ * Ограничения схемы повторяются: внешние ключи с каскадным удалением и уникальность номера задачи у студента.
+ * <p>
+ * Записи хранятся копиями, как строки таблиц: изменение полученного объекта не видно без update.
+ * Методы доступа к таблицам вызываются внутри {@link #read} или {@link #write}. Чтения выполняются параллельно,
+ * изменения и транзакции берут блокировку на запись, поэтому транзакции выполняются по очереди.
+ * Изменения внутри транзакции пишутся в журнал отмены и откатываются при исключении.
+ * <p>
+ * С {@link Journal} (database.backend = journal) изменения каждой транзакции или одиночного изменения
+ * дописываются в журнал одной записью при фиксации. Сброс журнала на диск выполняется уже после
+ * снятия блокировки, поэтому одновременные фиксации делят один fsync.
+ */
+public class InMemoryStore {
+    // Порядок выборок, как ORDER BY name, id и ORDER BY number, id в SQL-репозиториях
+    public static final Comparator<Group> GROUP_ORDER = Comparator.comparing(Group::getName).thenComparing(Group::getId);
+    public static final Comparator<Student> STUDENT_ORDER = Comparator.comparing(Student::getName).thenComparing(Student::getId);
+    public static final Comparator<Task> TASK_ORDER = Comparator.comparingInt(Task::getNumber).thenComparing(Task::getId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<UUID, Group> groups = new HashMap<>();
+    private final Map<UUID, Student> students = new HashMap<>();
+    private final Map<UUID, Task> tasks = new HashMap<>();
+    // Индекс студентов по группе
+    private final Map<UUID, Set<UUID>> studentsByGroup = new HashMap<>();
+    // Индекс задач по студенту и номеру, номера упорядочены
+    private final Map<UUID, NavigableMap<Integer, UUID>> tasksByStudent = new HashMap<>();
+    // Счетчики прогресса, как колонки submitted_tasks и total_tasks в H2: сданные задачи студента,
+    // {все задачи, сданные задачи} студентов группы. Меняются вместе с индексами, в том числе при отмене
+    private final Map<UUID, Integer> submittedByStudent = new HashMap<>();
+    private final Map<UUID, int[]> taskCountsByGroup = new HashMap<>();
+
+    // Журнал отмены открытой транзакции текущего потока (последнее изменение — первым)
+    private final ThreadLocal<Deque<Runnable>> undoLog = new ThreadLocal<>();
+    private final ThreadLocal<List<Runnable>> rollbackActions = new ThreadLocal<>();
+    private final ThreadLocal<List<Runnable>> commitActions = new ThreadLocal<>();
+
+    // Журнал изменений; null — хранилище только в памяти
+    private final Journal journal;
+    // Изменения текущей единицы работы потока (транзакции или одиночного изменения) для журнала
+    private final ThreadLocal<List<JournalRecord>> redoLog = new ThreadLocal<>();
+
+    public InMemoryStore() {
+        this(null);
+    }
+
+    InMemoryStore(Journal journal) {
+        this.journal = journal;
+    }
+
+    public <T> T read(Supplier<T> work) {
+        lock.readLock().lock();
+        try {
+            return work.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public <T> T write(Supplier<T> work) {
+        lock.writeLock().lock();
+        // Изменение вне транзакции фиксируется сразу, как autocommit в JDBC
+        boolean unit = journal != null && redoLog.get() == null;
+        if (unit) {
+            redoLog.set(new ArrayList<>());
+        }
+        long commitPosition = -1;
+        try {
+            return work.get();
+        } finally {
+            // Изменения без транзакции не откатываются, поэтому журналируются и при исключении
+            if (unit) {
+                commitPosition = commitRedo();
+            }
+            lock.writeLock().unlock();
+            if (commitPosition >= 0) {
+                journal.sync(commitPosition);
+            }
+        }
+    }
+
+    public void write(Runnable work) {
+        write(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет работу атомарно: до конца транзакции другие потоки не видят ее изменений,
+     * при исключении все изменения отменяются. Вложенный вызов присоединяется к открытой транзакции.
+     */
+    <T> T inTransaction(Supplier<T> work) {
+        if (undoLog.get() != null) {
+            return work.get();
+        }
+
+        lock.writeLock().lock();
+        Deque<Runnable> log = new ArrayDeque<>();
+        undoLog.set(log);
+        rollbackActions.set(new ArrayList<>());
+        List<Runnable> afterCommit = new ArrayList<>();
+        commitActions.set(afterCommit);
+        if (journal != null) {
+            redoLog.set(new ArrayList<>());
+        }
+        long commitPosition = -1;
+        boolean committed = false;
+        try {
+            T result = work.get();
+            if (journal != null) {
+                commitPosition = commitRedo();
+            }
+            committed = true;
+            return result;
+        } catch (RuntimeException | Error e) {
+            // Отмена выполняется без журналов: восстановленные записи не нужно ни отменять, ни журналировать
+            undoLog.remove();
+            redoLog.remove();
+            log.forEach(Runnable::run);
+            rollbackActions.get().forEach(Runnable::run);
+            throw e;
+        } finally {
+            undoLog.remove();
+            redoLog.remove();
+            rollbackActions.remove();
+            commitActions.remove();
+            lock.writeLock().unlock();
+            if (commitPosition >= 0) {
+                journal.sync(commitPosition);
+            }
+            if (committed) {
+                afterCommit.forEach(Runnable::run);
+            }
+        }
+    }
+
+    /**
+     * Дописывает изменения единицы работы в журнал (под блокировкой на запись) и при необходимости пишет снимок.
+     *
+     * @return позиция для ожидания сброса на диск или -1, если изменений не было
+     */
+    private long commitRedo() {
+        List<JournalRecord> records = redoLog.get();
+        redoLog.remove();
+        if (records.isEmpty()) {
+            return -1;
+        }
+
+        long end = journal.append(records);
+        if (journal.needsSnapshot()) {
+            journal.snapshot(this);
+        }
+        return end;
+    }
+
+    /**
+     * Записывает снимок и начинает журнал заново; без журнала ничего не делает.
+     */
+    public void checkpoint() {
+        if (journal != null) {
+            write(() -> journal.snapshot(this));
+        }
+    }
+
+    /**
+     * Все строки хранилища в виде записей журнала: группы, затем студенты, затем задачи.
+     */
+    List<JournalRecord> snapshotRecords() {
+        List<JournalRecord> records = new ArrayList<>(groups.size() + students.size() + tasks.size());
+        groups.values().forEach(group -> records.add(new JournalRecord.PutGroup(group)));
+        students.values().forEach(student -> records.add(new JournalRecord.PutStudent(student)));
+        tasks.values().forEach(task -> records.add(new JournalRecord.PutTask(task)));
+        return records;
+    }
+
+    boolean isInTransaction() {
+        return undoLog.get() != null;
+    }
+
+    void onRollback(Runnable action) {
+        List<Runnable> actions = rollbackActions.get();
+        if (actions != null) {
+            actions.add(action);
+        }
+    }
+
+    void afterCommit(Runnable action) {
+        List<Runnable> actions = commitActions.get();
+        if (actions != null) {
+            actions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private void logRedo(JournalRecord record) {
+        List<JournalRecord> records = redoLog.get();
+        if (records != null) {
+            records.add(record);
+        }
+    }
+
+    private void logUndo(Runnable undo) {
+        Deque<Runnable> log = undoLog.get();
+        if (log != null) {
+            log.push(undo);
+        }
+    }
+
+    // ---- группы ----
+
+    public Optional<Group> findGroup(UUID id) {
+        return Optional.ofNullable(groups.get(id)).map(InMemoryStore::copy);
+    }
+
+    public boolean containsGroup(UUID id) {
+        return groups.containsKey(id);
+    }
+
+    /**
+     * Возвращает все группы, упорядоченные по названию и идентификатору.
+     */
+    public List<Group> groups() {
+        return groups.values().stream()
+                .sorted(GROUP_ORDER)
+                .map(InMemoryStore::copy)
+                .toList();
+    }
+
+    /**
+     * Добавляет группу или заменяет группу с тем же идентификатором.
+     */
+    public void putGroup(Group group) {
+        UUID id = group.getId();
+        Group stored = copy(group);
+        Group previous = groups.put(id, stored);
+        logRedo(new JournalRecord.PutGroup(stored));
+        logUndo(() -> {
+            if (previous == null) {
+                groups.remove(id);
+            } else {
+                groups.put(id, previous);
+            }
+        });
+    }
+
+    /**
+     * Удаляет группу вместе с ее студентами и их задачами.
+     */
+    public boolean removeGroup(UUID id) {
+        Group removed = groups.get(id);
+        if (removed == null) {
+            return false;
+        }
+
+        for (UUID studentId : List.copyOf(studentsByGroup.getOrDefault(id, Set.of()))) {
+            removeStudent(studentId);
+        }
+        groups.remove(id);
+        logRedo(new JournalRecord.RemoveGroup(id));
+        logUndo(() -> groups.put(id, removed));
+        return true;
+    }
+
+    // ---- студенты ----
+
+    public Optional<Student> findStudent(UUID id) {
+        return Optional.ofNullable(students.get(id)).map(InMemoryStore::copy);
+    }
+
+    public boolean containsStudent(UUID id) {
+        return students.containsKey(id);
+    }
+
+    /**
+     * Возвращает всех студентов, упорядоченных по имени и идентификатору.
+     */
+    public List<Student> students() {
+        return sortedByName(students.values());
+    }
+
+    /**
+     * Возвращает студентов группы по индексу, упорядоченных по имени и идентификатору.
+     */
+    public List<Student> studentsOfGroup(UUID groupId) {
+        Set<UUID> ids = studentsByGroup.getOrDefault(groupId, Set.of());
+        return sortedByName(ids.stream().map(students::get).toList());
+    }
+
+    /**
+     * Возвращает идентификаторы студентов группы из индекса, без копирования записей.
+     */
+    public Set<UUID> studentIdsOfGroup(UUID groupId) {
+        return Collections.unmodifiableSet(studentsByGroup.getOrDefault(groupId, Set.of()));
+    }
+
+    public int countStudentsOfGroup(UUID groupId) {
+        return studentsByGroup.getOrDefault(groupId, Set.of()).size();
+    }
+
+    /**
+     * Добавляет студента или заменяет студента с тем же идентификатором.
+     *
+     * @throws IllegalStateException если группа студента не существует
+     */
+    public void putStudent(Student student) {
+        UUID id = student.getId();
+        UUID groupId = student.getGroupId();
+        if (!groups.containsKey(groupId)) {
+            throw new IllegalStateException("Referential integrity violation: group " + groupId + " does not exist");
+        }
+
+        Student stored = copy(student);
+        Student previous = students.put(id, stored);
+        logRedo(new JournalRecord.PutStudent(stored));
+        if (previous != null) {
+            unindexStudent(previous.getGroupId(), id);
+        }
+        indexStudent(groupId, id);
+
+        logUndo(() -> {
+            unindexStudent(groupId, id);
+            students.remove(id);
+            if (previous != null) {
+                students.put(id, previous);
+                indexStudent(previous.getGroupId(), id);
+            }
+        });
+    }
+
+    /**
+     * Удаляет студента вместе с его задачами.
+     */
+    public boolean removeStudent(UUID id) {
+        Student removed = students.get(id);
+        if (removed == null) {
+            return false;
+        }
+
+        for (UUID taskId : List.copyOf(tasksByStudent.getOrDefault(id, new TreeMap<>()).values())) {
+            removeTask(taskId);
+        }
+        students.remove(id);
+        unindexStudent(removed.getGroupId(), id);
+        logRedo(new JournalRecord.RemoveStudent(id));
+
+        logUndo(() -> {
+            students.put(id, removed);
+            indexStudent(removed.getGroupId(), id);
+        });
+        return true;
+    }
+
+    private void indexStudent(UUID groupId, UUID studentId) {
+        studentsByGroup.computeIfAbsent(groupId, key -> new LinkedHashSet<>()).add(studentId);
+        // Задачи студента, сменившего группу, переходят в счетчики новой группы
+        addGroupTasks(groupId, countTasksOfStudent(studentId), submittedByStudent.getOrDefault(studentId, 0));
+    }
+
+    private void unindexStudent(UUID groupId, UUID studentId) {
+        Set<UUID> ids = studentsByGroup.get(groupId);
+        if (ids != null && ids.remove(studentId) && ids.isEmpty()) {
+            studentsByGroup.remove(groupId);
+        }
+        addGroupTasks(groupId, -countTasksOfStudent(studentId), -submittedByStudent.getOrDefault(studentId, 0));
+    }
+
+    private void addGroupTasks(UUID groupId, int total, int submitted) {
+        if (total == 0 && submitted == 0) {
+            return;
+        }
+        int[] counts = taskCountsByGroup.computeIfAbsent(groupId, key -> new int[2]);
+        counts[0] += total;
+        counts[1] += submitted;
+        if (counts[0] == 0 && counts[1] == 0) {
+            taskCountsByGroup.remove(groupId);
+        }
+    }
+
+    /**
+     * Возвращает количество задач всех студентов группы по счетчику, без обхода студентов.
+     */
+    public int countTasksOfGroup(UUID groupId) {
+        return taskCountsByGroup.getOrDefault(groupId, new int[2])[0];
+    }
+
+    /**
+     * Возвращает количество задач студентов группы с данным статусом по счетчикам.
+     */
+    public int countTasksOfGroup(UUID groupId, TaskStatus status) {
+        int[] counts = taskCountsByGroup.getOrDefault(groupId, new int[2]);
+        return status == TaskStatus.SUBMITTED ? counts[1] : counts[0] - counts[1];
+    }
+
+    // ---- задачи ----
+
+    public Optional<Task> findTask(UUID id) {
+        return Optional.ofNullable(tasks.get(id)).map(InMemoryStore::copy);
+    }
+
+    public boolean containsTask(UUID id) {
+        return tasks.containsKey(id);
+    }
+
+    /**
+     * Возвращает задачу студента по номеру через индекс (студент, номер).
+     */
+    public Optional<Task> findTask(UUID studentId, int number) {
+        NavigableMap<Integer, UUID> byNumber = tasksByStudent.get(studentId);
+        UUID taskId = byNumber == null ? null : byNumber.get(number);
+        return taskId == null ? Optional.empty() : findTask(taskId);
+    }
+
+    /**
+     * Возвращает все задачи, упорядоченные по номеру и идентификатору.
+     */
+    public List<Task> tasks() {
+        return tasks.values().stream()
+                .sorted(TASK_ORDER)
+                .map(InMemoryStore::copy)
+                .toList();
+    }
+
+    /**
+     * Возвращает задачи студента по индексу, упорядоченные по номеру.
+     */
+    public List<Task> tasksOfStudent(UUID studentId) {
+        NavigableMap<Integer, UUID> byNumber = tasksByStudent.get(studentId);
+        if (byNumber == null) {
+            return List.of();
+        }
+        return byNumber.values().stream().map(tasks::get).map(InMemoryStore::copy).toList();
+    }
+
+    public int countTasksOfStudent(UUID studentId) {
+        NavigableMap<Integer, UUID> byNumber = tasksByStudent.get(studentId);
+        return byNumber == null ? 0 : byNumber.size();
+    }
+
+    /**
+     * Возвращает количество задач студента с данным статусом по счетчику сданных задач.
+     */
+    public int countTasksOfStudent(UUID studentId, TaskStatus status) {
+        int submitted = submittedByStudent.getOrDefault(studentId, 0);
+        return status == TaskStatus.SUBMITTED ? submitted : countTasksOfStudent(studentId) - submitted;
+    }
+
+    /**
+     * Добавляет задачу или заменяет задачу с тем же идентификатором.
+     *
+     * @throws IllegalStateException если студент не существует или у него уже есть задача с таким номером
+     */
+    public void putTask(Task task) {
+        UUID id = task.getId();
+        if (!students.containsKey(task.getStudentId())) {
+            throw new IllegalStateException("Referential integrity violation: student " + task.getStudentId() + " does not exist");
+        }
+        NavigableMap<Integer, UUID> byNumber = tasksByStudent.get(task.getStudentId());
+        UUID sameNumber = byNumber == null ? null : byNumber.get(task.getNumber());
+        if (sameNumber != null && !sameNumber.equals(id)) {
+            throw new IllegalStateException("Unique constraint violation: student " + task.getStudentId() + " already has task " + task.getNumber());
+        }
+
+        Task stored = copy(task);
+        Task previous = tasks.put(id, stored);
+        logRedo(new JournalRecord.PutTask(stored));
+        if (previous != null) {
+            unindexTask(previous);
+        }
+        indexTask(task);
+
+        logUndo(() -> {
+            unindexTask(task);
+            tasks.remove(id);
+            if (previous != null) {
+                tasks.put(id, previous);
+                indexTask(previous);
+            }
+        });
+    }
+
+    public boolean removeTask(UUID id) {
+        Task removed = tasks.remove(id);
+        if (removed == null) {
+            return false;
+        }
+
+        unindexTask(removed);
+        logRedo(new JournalRecord.RemoveTask(id));
+        logUndo(() -> {
+            tasks.put(id, removed);
+            indexTask(removed);
+        });
+        return true;
+    }
+
+    private void indexTask(Task task) {
+        tasksByStudent.computeIfAbsent(task.getStudentId(), key -> new TreeMap<>()).put(task.getNumber(), task.getId());
+        countTask(task, 1);
+    }
+
+    private void unindexTask(Task task) {
+        NavigableMap<Integer, UUID> byNumber = tasksByStudent.get(task.getStudentId());
+        if (byNumber != null && byNumber.remove(task.getNumber(), task.getId()) && byNumber.isEmpty()) {
+            tasksByStudent.remove(task.getStudentId());
+        }
+        countTask(task, -1);
+    }
+
+    /**
+     * Учитывает задачу (sign = 1) или снимает ее учет (sign = -1) в счетчиках студента и его группы.
+     * Студент задачи существует: задачи удаляются раньше студента, а при отмене восстанавливаются после него.
+     */
+    private void countTask(Task task, int sign) {
+        UUID studentId = task.getStudentId();
+        int submitted = task.getStatus() == TaskStatus.SUBMITTED ? sign : 0;
+        if (submitted != 0) {
+            submittedByStudent.merge(studentId, submitted, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        addGroupTasks(students.get(studentId).getGroupId(), sign, submitted);
+    }
+
+    // ---- страницы ----
+
+    /**
+     * Возвращает не более limit записей списка, упорядоченного по order, которые следуют за записью after;
+     * при after == null — первые limit записей. Как и в SQL-репозиториях, ключ страницы берется из самой
+     * записи after, поэтому она может уже не входить в список.
+     */
+    public static <T> List<T> pageAfter(List<T> sorted, Comparator<? super T> order, T after, int limit) {
+        int from = 0;
+        if (after != null) {
+            // Первая позиция, строго большая ключа
+            int high = sorted.size();
+            while (from < high) {
+                int middle = (from + high) >>> 1;
+                if (order.compare(sorted.get(middle), after) <= 0) {
+                    from = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+        }
+        return List.copyOf(sorted.subList(from, Math.min(sorted.size(), from + limit)));
+    }
+
+    // ---- копии записей ----
+
+    private static List<Student> sortedByName(Collection<Student> values) {
+        return values.stream()
+                .sorted(STUDENT_ORDER)
+                .map(InMemoryStore::copy)
+                .toList();
+    }
+
+    private static Group copy(Group group) {
+        return new Group(group.getId(), group.getName(), group.getCourseNumber());
+    }
+
+    private static Student copy(Student student) {
+        return new Student(student.getId(), student.getName(), student.getGroupId());
+    }
+
+    private static Task copy(Task task) {
+        return new Task(task.getId(), task.getStudentId(), task.getNumber(), task.getStatus());
+    }
+}
@@ -0,0 +1,36 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.util.function.Supplier;
+
+/**
+ * Шаблон транзакции для хранилища в памяти (database.backend = memory).
+ * Транзакция держит блокировку хранилища на запись и при исключении отменяет изменения
+ * по журналу отмены, см. {@link InMemoryStore}.
+ */
+public class InMemoryTransactionManager implements ITransactionManager {
+    private final InMemoryStore store;
+
+    public InMemoryTransactionManager(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        return store.inTransaction(work);
+    }
+
+    @Override
+    public boolean isActive() {
+        return store.isInTransaction();
+    }
+
+    @Override
+    public void onRollback(Runnable action) {
+        store.onRollback(action);
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        store.afterCommit(action);
+    }
+}
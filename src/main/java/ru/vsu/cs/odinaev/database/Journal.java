@@ -0,0 +1,409 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений для database.backend = journal: рабочие данные живут в {@link InMemoryStore},
+ * каждая фиксация дописывается в отображенный в память файл journal.log одной записью.
+ * <p>
+ * Формат журнала: заголовок (магическое число, версия, поколение), затем записи
+ * [длина][CRC32][поколение][изменения]. Длина пишется последней, поэтому оборванная запись
+ * при восстановлении выглядит как конец журнала. Поколение отделяет записи текущего журнала
+ * от старых, оставшихся в файле после сброса.
+ * <p>
+ * Сброс на диск — групповой: фиксация ждет, пока ее конец не окажется на диске, и один поток
+ * вызывает force сразу для всех накопившихся записей. Когда журнал вырастает больше порога,
+ * состояние записывается снимком snapshot.bin следующего поколения и журнал начинается заново;
+ * восстановление читает снимок и повторяет только журнал того же поколения.
+ */
+public class Journal implements AutoCloseable {
+    private static final int MAGIC = 0x4D42524A;          // "MBRJ"
+    private static final int SNAPSHOT_MAGIC = 0x4D425253; // "MBRS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_HEADER_SIZE = 16;
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final boolean fsync;
+    private final long snapshotThreshold;
+    private final FileChannel channel;
+
+    // Поля ниже меняются под монитором журнала
+    private MappedByteBuffer buffer;
+    private long generation;
+    // Смещение конца последней записи в файле
+    private int position;
+    // Логическая позиция начала файла: растет на длину журнала при каждом снимке, позиции не повторяются
+    private long basePosition;
+
+    // Логическая позиция, до которой журнал гарантированно на диске
+    private final AtomicLong syncedPosition = new AtomicLong();
+    private final Object syncLock = new Object();
+
+    private Journal(Path dir, long fileSize, boolean fsync, long snapshotThreshold) throws IOException {
+        Files.createDirectories(dir);
+        this.journalFile = dir.resolve("journal.log");
+        this.snapshotFile = dir.resolve("snapshot.bin");
+        this.fsync = fsync;
+        this.snapshotThreshold = snapshotThreshold;
+        this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(fileSize, channel.size()));
+    }
+
+    /**
+     * Открывает журнал в каталоге; состояние восстанавливается вызовом {@link #recover()}.
+     *
+     * @param fileSize          начальный размер файла журнала, отображаемого в память
+     * @param fsync             сбрасывать журнал на диск до возврата из фиксации
+     * @param snapshotThreshold размер журнала, после которого пишется снимок
+     */
+    public static Journal open(Path dir, long fileSize, boolean fsync, long snapshotThreshold) {
+        try {
+            return new Journal(dir, fileSize, fsync, snapshotThreshold);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal in " + dir, e);
+        }
+    }
+
+    /**
+     * Восстанавливает хранилище: загружает снимок и повторяет записи журнала того же поколения
+     * до первой оборванной или поврежденной записи. Все, что лежит в файле после нее, стирается.
+     * Дальнейшие изменения хранилища журналируются.
+     */
+    public synchronized InMemoryStore recover() {
+        InMemoryStore store = new InMemoryStore(this);
+        try {
+            generation = Files.exists(snapshotFile) ? readSnapshot(store) : 0;
+
+            position = HEADER_SIZE;
+            if (buffer.getInt(0) == MAGIC && buffer.getLong(8) == generation) {
+                replay(store);
+            } else {
+                // Новый журнал или журнал до последнего снимка: все его изменения уже в снимке
+                writeHeader(generation);
+            }
+            clearTail();
+            syncedPosition.set(position);
+            return store;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover from journal " + journalFile, e);
+        }
+    }
+
+    private void replay(InMemoryStore store) throws IOException {
+        // Границы сравниваются с остатком файла: сумма позиции и испорченной длины может переполнить int
+        while (buffer.capacity() - position >= ENTRY_HEADER_SIZE) {
+            int length = buffer.getInt(position);
+            if (length <= ENTRY_HEADER_SIZE || length > buffer.capacity() - position
+                    || buffer.getLong(position + 8) != generation) {
+                break;
+            }
+
+            byte[] payload = new byte[length - ENTRY_HEADER_SIZE];
+            buffer.get(position + ENTRY_HEADER_SIZE, payload);
+            if (buffer.getInt(position + 4) != checksum(generation, payload)) {
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                JournalRecord.read(in).apply(store);
+            }
+            position += length;
+        }
+    }
+
+    /**
+     * Обнуляет файл после последней повторенной записи и сбрасывает его на диск. За потерянной записью
+     * (например, страницей, не сброшенной при fsync = false) могут уцелеть следующие записи того же поколения;
+     * новая запись той же длины снова выровняла бы их, и они повторились бы после отброшенной фиксации.
+     */
+    private void clearTail() {
+        byte[] zeros = new byte[1 << 16];
+        int dirtyFrom = -1;
+        int dirtyTo = -1;
+        // Шаг равен длине куска: последний кусок заканчивается ровно на capacity, и from не переполняется
+        for (int from = position, length; from < buffer.capacity(); from += length) {
+            length = Math.min(zeros.length, buffer.capacity() - from);
+            if (isZero(from, length)) {
+                continue;
+            }
+            buffer.put(from, zeros, 0, length);
+            if (dirtyFrom < 0) {
+                dirtyFrom = from;
+            }
+            dirtyTo = from + length;
+        }
+        if (dirtyFrom >= 0) {
+            buffer.force(dirtyFrom, dirtyTo - dirtyFrom);
+        }
+    }
+
+    private boolean isZero(int from, int length) {
+        int end = from + length;
+        int i = from;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            if (buffer.getLong(i) != 0) {
+                return false;
+            }
+        }
+        for (; i < end; i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Дописывает изменения одной фиксации. Вызывается под блокировкой хранилища на запись,
+     * поэтому порядок записей совпадает с порядком фиксаций.
+     *
+     * @return логическая позиция конца записи для {@link #sync(long)}
+     */
+    synchronized long append(List<JournalRecord> records) {
+        byte[] payload = encode(records);
+        int length = ENTRY_HEADER_SIZE + payload.length;
+        ensureCapacity((long) position + length);
+
+        buffer.putInt(position + 4, checksum(generation, payload));
+        buffer.putLong(position + 8, generation);
+        buffer.put(position + ENTRY_HEADER_SIZE, payload);
+        // Длина — последней: до нее запись при восстановлении не видна
+        buffer.putInt(position, length);
+
+        position += length;
+        return basePosition + position;
+    }
+
+    /**
+     * Дожидается, пока журнал до позиции end окажется на диске. Поток, получивший syncLock первым,
+     * сбрасывает все записи, дописанные к этому моменту; остальные находят свою позицию уже сброшенной.
+     */
+    void sync(long end) {
+        if (!fsync || syncedPosition.get() >= end) {
+            return;
+        }
+
+        synchronized (syncLock) {
+            if (syncedPosition.get() >= end) {
+                return;
+            }
+
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long logicalEnd;
+            synchronized (this) {
+                target = buffer;
+                from = (int) Math.max(0, syncedPosition.get() - basePosition);
+                to = position;
+                logicalEnd = basePosition + position;
+            }
+            target.force(from, to - from);
+            syncedPosition.accumulateAndGet(logicalEnd, Math::max);
+        }
+    }
+
+    boolean needsSnapshot() {
+        return position > snapshotThreshold;
+    }
+
+    /**
+     * Записывает снимок хранилища следующего поколения и начинает журнал заново.
+     * Вызывается под блокировкой хранилища на запись, пока в журнал никто не пишет.
+     */
+    synchronized void snapshot(InMemoryStore store) {
+        long next = generation + 1;
+        try {
+            writeSnapshot(store, next);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + snapshotFile, e);
+        }
+
+        // Все изменения журнала есть в снимке: старые записи отсекает новое поколение в заголовке
+        basePosition += position;
+        position = HEADER_SIZE;
+        generation = next;
+        writeHeader(next);
+        syncedPosition.accumulateAndGet(basePosition + position, Math::max);
+    }
+
+    private void writeSnapshot(InMemoryStore store, long snapshotGeneration) throws IOException {
+        Path tmp = snapshotFile.resolveSibling("snapshot.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new ChecksumOutputStream(Channels.newOutputStream(out), crc), 1 << 16));
+
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(snapshotGeneration);
+            // Порядок важен для внешних ключей: группы, затем студенты, затем задачи
+            List<JournalRecord> records = store.snapshotRecords();
+            data.writeInt(records.size());
+            for (JournalRecord record : records) {
+                record.write(data);
+            }
+            data.flush();
+            data.writeInt((int) crc.getValue());
+            data.flush();
+            out.force(true);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long readSnapshot(InMemoryStore store) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream data = new DataInputStream(new ChecksumInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16), crc))) {
+            if (data.readInt() != SNAPSHOT_MAGIC || data.readInt() != VERSION) {
+                throw new IOException("Not a journal snapshot: " + snapshotFile);
+            }
+            long snapshotGeneration = data.readLong();
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                JournalRecord.read(data).apply(store);
+            }
+
+            int expected = (int) crc.getValue();
+            if (data.readInt() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + snapshotFile);
+            }
+            return snapshotGeneration;
+        }
+    }
+
+    private void writeHeader(long headerGeneration) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, headerGeneration);
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    private void ensureCapacity(long required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        // Файл растет вдвое; старое отображение остается валидным для сбрасывающего потока
+        long size = Math.max((long) buffer.capacity() * 2, required);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Journal file is too large, lower database.journal.snapshot-threshold");
+        }
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow journal " + journalFile, e);
+        }
+    }
+
+    private static byte[] encode(List<JournalRecord> records) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * records.size() + 4);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(records.size());
+            for (JournalRecord record : records) {
+                record.write(out);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int checksum(long entryGeneration, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, entryGeneration));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Сбрасывает журнал на диск и закрывает файл. Снимок перед закрытием пишет {@link InMemoryStore#checkpoint()}.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close journal " + journalFile, e);
+        }
+    }
+
+    private static final class ChecksumOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final CRC32 crc;
+
+        ChecksumOutputStream(OutputStream out, CRC32 crc) {
+            this.out = out;
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            crc.update(b);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            out.write(b, off, len);
+        }
+    }
+
+    private static final class ChecksumInputStream extends InputStream {
+        private final InputStream in;
+        private final CRC32 crc;
+
+        ChecksumInputStream(InputStream in, CRC32 crc) {
+            this.in = in;
+            this.crc = crc;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                crc.update(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                crc.update(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
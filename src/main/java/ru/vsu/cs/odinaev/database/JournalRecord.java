@@ -0,0 +1,127 @@
+package ru.vsu.cs.odinaev.database;
+
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Запись журнала {@link Journal}: одно изменение строки {@link InMemoryStore}.
+ * Повтор записей в исходном порядке восстанавливает состояние хранилища, каскадные удаления
+ * журналируются построчно, поэтому повтор не зависит от каскадов.
+ */
+sealed interface JournalRecord {
+    byte PUT_GROUP = 1;
+    byte REMOVE_GROUP = 2;
+    byte PUT_STUDENT = 3;
+    byte REMOVE_STUDENT = 4;
+    byte PUT_TASK = 5;
+    byte REMOVE_TASK = 6;
+
+    void write(DataOutput out) throws IOException;
+
+    /**
+     * Применяет изменение к хранилищу при восстановлении (вне транзакций, без журналирования).
+     */
+    void apply(InMemoryStore store);
+
+    static JournalRecord read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case PUT_GROUP -> new PutGroup(new Group(readUuid(in), in.readUTF(), in.readInt()));
+            case REMOVE_GROUP -> new RemoveGroup(readUuid(in));
+            case PUT_STUDENT -> new PutStudent(new Student(readUuid(in), in.readUTF(), readUuid(in)));
+            case REMOVE_STUDENT -> new RemoveStudent(readUuid(in));
+            case PUT_TASK -> new PutTask(new Task(readUuid(in), readUuid(in), in.readInt(), TaskStatus.values()[in.readByte()]));
+            case REMOVE_TASK -> new RemoveTask(readUuid(in));
+            default -> throw new IOException("Unknown journal record type " + type);
+        };
+    }
+
+    record PutGroup(Group group) implements JournalRecord {
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(PUT_GROUP);
+            writeUuid(out, group.getId());
+            out.writeUTF(group.getName());
+            out.writeInt(group.getCourseNumber());
+        }
+
+        public void apply(InMemoryStore store) {
+            store.putGroup(group);
+        }
+    }
+
+    record RemoveGroup(UUID id) implements JournalRecord {
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(REMOVE_GROUP);
+            writeUuid(out, id);
+        }
+
+        public void apply(InMemoryStore store) {
+            store.removeGroup(id);
+        }
+    }
+
+    record PutStudent(Student student) implements JournalRecord {
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(PUT_STUDENT);
+            writeUuid(out, student.getId());
+            out.writeUTF(student.getName());
+            writeUuid(out, student.getGroupId());
+        }
+
+        public void apply(InMemoryStore store) {
+            store.putStudent(student);
+        }
+    }
+
+    record RemoveStudent(UUID id) implements JournalRecord {
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(REMOVE_STUDENT);
+            writeUuid(out, id);
+        }
+
+        public void apply(InMemoryStore store) {
+            store.removeStudent(id);
+        }
+    }
+
+    record PutTask(Task task) implements JournalRecord {
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(PUT_TASK);
+            writeUuid(out, task.getId());
+            writeUuid(out, task.getStudentId());
+            out.writeInt(task.getNumber());
+            out.writeByte(task.getStatus().ordinal());
+        }
+
+        public void apply(InMemoryStore store) {
+            store.putTask(task);
+        }
+    }
+
+    record RemoveTask(UUID id) implements JournalRecord {
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(REMOVE_TASK);
+            writeUuid(out, id);
+        }
+
+        public void apply(InMemoryStore store) {
+            store.removeTask(id);
+        }
+    }
+
+    private static void writeUuid(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
@@ -0,0 +1,23 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Версионированная миграция схемы базы данных.
+ * Миграции применяются строго по возрастанию версии, каждая ровно один раз;
+ * примененные версии и их контрольные суммы хранятся в таблице schema_version.
+ */
+public interface Migration {
+    int version();
+
+    String description();
+
+    /**
+     * Контрольная сумма содержимого миграции. Если она изменилась после применения,
+     * запуск прерывается: уже примененную миграцию нельзя редактировать.
+     */
+    int checksum();
+
+    void apply(Connection conn) throws SQLException;
+}
@@ -0,0 +1,119 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Применяет версионированные миграции схемы.
+ * Если все миграции уже применены и их контрольные суммы совпадают,
+ * при запуске выполняется только чтение schema_version, без DDL.
+ */
+public class MigrationRunner {
+    private final List<Migration> migrations;
+
+    public MigrationRunner(List<Migration> migrations) {
+        this.migrations = migrations.stream()
+                .sorted(Comparator.comparingInt(Migration::version))
+                .toList();
+    }
+
+    /**
+     * Приводит схему к последней версии.
+     *
+     * @return количество примененных миграций
+     */
+    public int migrate(Connection conn) throws SQLException {
+        if (!schemaVersionTableExists(conn)) {
+            createSchemaVersionTable(conn);
+        }
+
+        Map<Integer, Integer> applied = loadAppliedChecksums(conn);
+        int appliedNow = 0;
+
+        for (Migration migration : migrations) {
+            Integer checksum = applied.get(migration.version());
+            if (checksum != null) {
+                if (checksum != migration.checksum()) {
+                    throw new IllegalStateException("Checksum mismatch for migration V" + migration.version()
+                            + " (" + migration.description() + "): applied migrations must not be modified");
+                }
+                continue;
+            }
+
+            apply(conn, migration);
+            appliedNow++;
+        }
+        return appliedNow;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long startedAt = System.nanoTime();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            migration.apply(conn);
+
+            String sql = "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, migration.version());
+                stmt.setString(2, migration.description());
+                stmt.setInt(3, migration.checksum());
+                stmt.setLong(4, (System.nanoTime() - startedAt) / 1_000_000);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw new SQLException("Migration V" + migration.version() + " (" + migration.description() + ") failed", e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        // В stderr, как и остальная диагностика: stdout команд и сценариев разбирают пользователи
+        System.err.println("Applied migration V" + migration.version() + ": " + migration.description());
+    }
+
+    private boolean schemaVersionTableExists(Connection conn) throws SQLException {
+        String sql = "SELECT 1 FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = 'SCHEMA_VERSION'";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    private void createSchemaVersionTable(Connection conn) throws SQLException {
+        String sql = """
+        CREATE TABLE IF NOT EXISTS schema_version (
+            version INT PRIMARY KEY,
+            description VARCHAR(200) NOT NULL,
+            checksum INT NOT NULL,
+            execution_ms BIGINT NOT NULL,
+            installed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """;
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private Map<Integer, Integer> loadAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, Integer> applied = new HashMap<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version, checksum FROM schema_version");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getInt("checksum"));
+            }
+        }
+        return applied;
+    }
+}
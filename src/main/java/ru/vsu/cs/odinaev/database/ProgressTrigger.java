@@ -0,0 +1,153 @@
+package ru.vsu.cs.odinaev.database;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Триггер H2, поддерживающий счетчики прогресса из миграции V4 в транзакции изменившего строку оператора.
+ * На tasks изменяет total_tasks и submitted_tasks студента, на students переносит изменения
+ * счетчиков студента (и его самого) в students_count, total_tasks и submitted_tasks группы.
+ * <p>
+ * Каскадные удаления учитываются при любом порядке удаления строк: счетчики удаленного студента
+ * вычитаются из группы вместе с ним, а задачи, удаляемые после него, уже не находят его строку.
+ * <p>
+ * Цена счетчиков — запись в строку группы при каждом изменении задачи: задача обновляет студента,
+ * триггер студента обновляет группу. Строка группы блокируется до конца транзакции, поэтому транзакции,
+ * пишущие в одну группу, выполняются по очереди. Транзакции, меняющие задачи нескольких групп в разном порядке,
+ * могут заблокировать друг друга (H2 откатит одну из них), поэтому массовые изменения по многим группам
+ * лучше выполнять короткими транзакциями. Удаление группы каскадом вызывает триггер на каждую задачу
+ * и студента и с V4 замедлилось примерно на четверть (35 → 26 оп/с в ServiceBenchmark.deleteGroup).
+ * Накопление изменений построчными триггерами и их применение одним MERGE в триггере оператора
+ * этого не окупает: основное время занимает сам вызов построчного триггера, а не обновления счетчиков.
+ */
+public class ProgressTrigger implements Trigger {
+    private static final String UPDATE_STUDENT_SQL =
+            "UPDATE students SET total_tasks = total_tasks + ?, submitted_tasks = submitted_tasks + ? WHERE id = ?";
+    private static final String UPDATE_GROUP_SQL = """
+            UPDATE groups SET students_count = students_count + ?, total_tasks = total_tasks + ?,
+                              submitted_tasks = submitted_tasks + ?
+            WHERE id = ?
+            """;
+    private static final String COLUMNS_SQL = """
+            SELECT COLUMN_NAME, ORDINAL_POSITION FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?
+            """;
+
+    private boolean tasksTable;
+    // Позиции колонок в строках, которые H2 передает в fire
+    private int studentIdColumn;
+    private int statusColumn;
+    private int groupIdColumn;
+    private int totalTasksColumn;
+    private int submittedTasksColumn;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) throws SQLException {
+        Map<String, Integer> columns = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(COLUMNS_SQL)) {
+            stmt.setString(1, schemaName);
+            stmt.setString(2, tableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    columns.put(rs.getString(1), rs.getInt(2) - 1);
+                }
+            }
+        }
+
+        tasksTable = tableName.equals("TASKS");
+        if (tasksTable) {
+            studentIdColumn = column(columns, "STUDENT_ID");
+            statusColumn = column(columns, "STATUS");
+        } else {
+            groupIdColumn = column(columns, "GROUP_ID");
+            totalTasksColumn = column(columns, "TOTAL_TASKS");
+            submittedTasksColumn = column(columns, "SUBMITTED_TASKS");
+        }
+    }
+
+    private static int column(Map<String, Integer> columns, String name) throws SQLException {
+        Integer index = columns.get(name);
+        if (index == null) {
+            throw new SQLException("Column " + name + " not found for progress trigger");
+        }
+        return index;
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (tasksTable) {
+            fireTask(conn, oldRow, newRow);
+        } else {
+            fireStudent(conn, oldRow, newRow);
+        }
+    }
+
+    private void fireTask(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (oldRow != null && newRow != null && oldRow[studentIdColumn].equals(newRow[studentIdColumn])) {
+            // Изменение статуса; запись той же строки без смены статуса счетчики не трогает
+            int submitted = submitted(newRow) - submitted(oldRow);
+            if (submitted != 0) {
+                updateStudent(conn, newRow[studentIdColumn], 0, submitted);
+            }
+            return;
+        }
+        if (oldRow != null) {
+            updateStudent(conn, oldRow[studentIdColumn], -1, -submitted(oldRow));
+        }
+        if (newRow != null) {
+            updateStudent(conn, newRow[studentIdColumn], 1, submitted(newRow));
+        }
+    }
+
+    private void fireStudent(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (oldRow != null && newRow != null && oldRow[groupIdColumn].equals(newRow[groupIdColumn])) {
+            // Изменились счетчики студента (или только его имя)
+            int total = count(newRow, totalTasksColumn) - count(oldRow, totalTasksColumn);
+            int submitted = count(newRow, submittedTasksColumn) - count(oldRow, submittedTasksColumn);
+            if (total != 0 || submitted != 0) {
+                updateGroup(conn, newRow[groupIdColumn], 0, total, submitted);
+            }
+            return;
+        }
+        if (oldRow != null) {
+            updateGroup(conn, oldRow[groupIdColumn], -1, -count(oldRow, totalTasksColumn), -count(oldRow, submittedTasksColumn));
+        }
+        if (newRow != null) {
+            updateGroup(conn, newRow[groupIdColumn], 1, count(newRow, totalTasksColumn), count(newRow, submittedTasksColumn));
+        }
+    }
+
+    private int submitted(Object[] taskRow) {
+        return "SUBMITTED".equals(taskRow[statusColumn]) ? 1 : 0;
+    }
+
+    private static int count(Object[] row, int column) {
+        return ((Number) row[column]).intValue();
+    }
+
+    private static void updateStudent(Connection conn, Object studentId, int total, int submitted) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_STUDENT_SQL)) {
+            stmt.setInt(1, total);
+            stmt.setInt(2, submitted);
+            stmt.setObject(3, studentId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void updateGroup(Connection conn, Object groupId, int students, int total, int submitted) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_GROUP_SQL)) {
+            stmt.setInt(1, students);
+            stmt.setInt(2, total);
+            stmt.setInt(3, submitted);
+            stmt.setObject(4, groupId);
+            stmt.executeUpdate();
+        }
+    }
+}
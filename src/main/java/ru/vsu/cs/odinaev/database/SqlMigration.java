@@ -0,0 +1,87 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Миграция из SQL-ресурса в classpath (db/migration/V&lt;версия&gt;__&lt;описание&gt;.sql).
+ * Операторы разделяются точкой с запятой в конце строки, строки с "--" считаются комментариями.
+ */
+public class SqlMigration implements Migration {
+    private final int version;
+    private final String description;
+    private final String sql;
+
+    public SqlMigration(int version, String description, String resource) {
+        this.version = version;
+        this.description = description;
+        this.sql = readResource(resource);
+    }
+
+    @Override
+    public int version() {
+        return version;
+    }
+
+    @Override
+    public String description() {
+        return description;
+    }
+
+    @Override
+    public int checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : statements()) {
+                stmt.execute(statement);
+            }
+        }
+    }
+
+    private List<String> statements() {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                current.setLength(current.lastIndexOf(";"));
+                statements.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    private static String readResource(String resource) {
+        try (InputStream in = SqlMigration.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration resource not found: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read migration " + resource, e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.util.function.Supplier;
+
+/**
+ * JDBC-реализация шаблона транзакции. Привязывает соединение из пула к текущему потоку,
+ * репозитории получают его прозрачно через {@link DatabaseManager#getConnection()}.
+ */
+public class TransactionManager implements ITransactionManager {
+    private final DatabaseManager dbManager;
+
+    public TransactionManager(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        return dbManager.inTransaction(work);
+    }
+
+    @Override
+    public boolean isActive() {
+        return dbManager.isInTransaction();
+    }
+
+    @Override
+    public void onRollback(Runnable action) {
+        dbManager.onRollback(action);
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        dbManager.afterCommit(action);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.vsu.cs.odinaev.database;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.CRC32;
+
+/**
+ * Переводит идентификаторы баз, созданных до перехода на UUID, из VARCHAR(36) в UUID.
+ * Для новых баз (V1 уже создает UUID-колонки) ничего не делает.
+ */
+class UuidColumnsMigration implements Migration {
+
+    // Порядок важен: сначала первичные ключи, затем ссылающиеся на них внешние ключи
+    private static final String[][] COLUMNS = {
+            {"GROUPS", "ID"},
+            {"STUDENTS", "ID"},
+            {"STUDENTS", "GROUP_ID"},
+            {"TASKS", "ID"},
+            {"TASKS", "STUDENT_ID"}
+    };
+
+    @Override
+    public int version() {
+        return 2;
+    }
+
+    @Override
+    public String description() {
+        return "uuid columns";
+    }
+
+    @Override
+    public int checksum() {
+        CRC32 crc = new CRC32();
+        for (String[] column : COLUMNS) {
+            crc.update((column[0] + "." + column[1] + ";").getBytes(StandardCharsets.UTF_8));
+        }
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void apply(Connection conn) throws SQLException {
+        String sql = """
+        SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS
+        WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ? AND COLUMN_NAME = ?
+        """;
+
+        try (PreparedStatement typeStmt = conn.prepareStatement(sql);
+             Statement stmt = conn.createStatement()) {
+            for (String[] column : COLUMNS) {
+                typeStmt.setString(1, column[0]);
+                typeStmt.setString(2, column[1]);
+
+                try (ResultSet rs = typeStmt.executeQuery()) {
+                    if (rs.next() && !"UUID".equals(rs.getString(1))) {
+                        stmt.execute("ALTER TABLE " + column[0] + " ALTER COLUMN " + column[1] + " SET DATA TYPE UUID");
+                    }
+                }
+            }
+        }
+    }
+}
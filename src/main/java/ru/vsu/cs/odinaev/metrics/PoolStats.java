@@ -0,0 +1,13 @@
+package ru.vsu.cs.odinaev.metrics;
+
+/**
+ * Снимок состояния пула соединений Hikari.
+ *
+ * @param active  соединения, выданные потокам
+ * @param idle    свободные соединения в пуле
+ * @param pending потоки, ожидающие соединение
+ * @param total   всего открытых соединений
+ * @param max     максимальный размер пула
+ */
+public record PoolStats(int active, int idle, int pending, int total, int max) {
+}
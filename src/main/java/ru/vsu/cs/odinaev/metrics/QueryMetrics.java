@@ -0,0 +1,156 @@
+package ru.vsu.cs.odinaev.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики выполнения SQL-запросов. Соединение, обернутое в {@link #wrap(Connection)},
+ * замеряет каждое выполнение подготовленного запроса: количество, суммарное и максимальное время,
+ * гистограмму задержек и число строк. Запросы дольше порога пишутся в stderr.
+ */
+public class QueryMetrics {
+    /**
+     * Верхние границы интервалов гистограммы в микросекундах; последний интервал не ограничен
+     */
+    public static final long[] HISTOGRAM_BOUNDS_MICROS = {100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000};
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final long slowQueryNanos;
+
+    /**
+     * @param slowQueryMillis порог медленного запроса в миллисекундах, 0 — не писать медленные запросы
+     */
+    public QueryMetrics(long slowQueryMillis) {
+        this.slowQueryNanos = slowQueryMillis * 1_000_000;
+    }
+
+    /**
+     * Оборачивает соединение: подготовленные им запросы будут замеряться.
+     */
+    public Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(method, connection, args);
+            if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String sql) {
+                return meter((PreparedStatement) result, counters.computeIfAbsent(sql, key -> new Counters()), sql);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Возвращает счетчики всех выполнявшихся запросов.
+     */
+    public List<QueryStats> snapshot() {
+        List<QueryStats> stats = new ArrayList<>(counters.size());
+        counters.forEach((sql, c) -> {
+            List<Long> histogram = new ArrayList<>(c.histogram.length());
+            for (int i = 0; i < c.histogram.length(); i++) {
+                histogram.add(c.histogram.get(i));
+            }
+            stats.add(new QueryStats(sql, c.count.sum(), c.totalNanos.sum(), c.maxNanos.get(), c.rows.sum(), histogram));
+        });
+        return stats;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    private PreparedStatement meter(PreparedStatement statement, Counters c, String sql) {
+        return proxy(PreparedStatement.class, statement, (method, args) -> {
+            // Замеряются только варианты без SQL в аргументах, то есть выполнение самого подготовленного запроса
+            if (!EXECUTE_METHODS.contains(method.getName()) || (args != null && args.length > 0)) {
+                return invoke(method, statement, args);
+            }
+
+            long start = System.nanoTime();
+            Object result = invoke(method, statement, args);
+            long elapsed = System.nanoTime() - start;
+
+            record(c, elapsed, sql);
+            if (result instanceof ResultSet rs) {
+                return countRows(rs, c);
+            }
+            if (result instanceof Number updated) {
+                c.rows.add(Math.max(updated.longValue(), 0));
+            } else if (result instanceof int[] batch) {
+                for (int updated : batch) {
+                    c.rows.add(Math.max(updated, 0));
+                }
+            } else if (result instanceof long[] batch) {
+                for (long updated : batch) {
+                    c.rows.add(Math.max(updated, 0));
+                }
+            }
+            return result;
+        });
+    }
+
+    private ResultSet countRows(ResultSet rs, Counters c) {
+        return proxy(ResultSet.class, rs, (method, args) -> {
+            Object result = invoke(method, rs, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                c.rows.increment();
+            }
+            return result;
+        });
+    }
+
+    private void record(Counters c, long elapsed, String sql) {
+        c.count.increment();
+        c.totalNanos.add(elapsed);
+        c.maxNanos.accumulateAndGet(elapsed, Math::max);
+
+        long micros = elapsed / 1_000;
+        int bucket = 0;
+        while (bucket < HISTOGRAM_BOUNDS_MICROS.length && micros > HISTOGRAM_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        c.histogram.incrementAndGet(bucket);
+
+        if (slowQueryNanos > 0 && elapsed >= slowQueryNanos) {
+            System.err.printf("Slow query (%.1f ms): %s%n", elapsed / 1_000_000.0, sql.replaceAll("\\s+", " ").trim());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method, args));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS_MICROS.length + 1);
+    }
+}
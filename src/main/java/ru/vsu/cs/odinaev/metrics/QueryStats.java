@@ -0,0 +1,23 @@
+package ru.vsu.cs.odinaev.metrics;
+
+import java.util.List;
+
+/**
+ * Снимок счетчиков одного SQL-запроса.
+ *
+ * @param sql        текст запроса
+ * @param count      количество выполнений
+ * @param totalNanos суммарное время выполнения
+ * @param maxNanos   максимальное время одного выполнения
+ * @param rows       прочитанные строки для SELECT и измененные строки для DML
+ * @param histogram  количество выполнений по интервалам {@link QueryMetrics#HISTOGRAM_BOUNDS_MICROS}
+ */
+public record QueryStats(String sql, long count, long totalNanos, long maxNanos, long rows, List<Long> histogram) {
+
+    /**
+     * Возвращает среднее время выполнения в наносекундах.
+     */
+    public long avgNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.vsu.cs.odinaev.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Разбивка времени запуска: длительности этапов (в том числе выполняемых в фоне)
+ * и моменты готовности, отсчитываемые от старта JVM.
+ */
+public final class StartupTimer {
+    private static final Instant MAIN_STARTED = Instant.now();
+    private static final List<String> ENTRIES = new ArrayList<>();
+
+    private StartupTimer() {
+    }
+
+    public static <T> T measure(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public static void measure(String phase, Runnable work) {
+        measure(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Записывает длительность этапа, замеренного вызывающим кодом (например, если этап бросает проверяемые исключения).
+     */
+    public static void record(String phase, long elapsedNanos) {
+        add(String.format("%-28s %8.1f мс", phase, elapsedNanos / 1_000_000.0));
+    }
+
+    /**
+     * Отмечает момент готовности относительно старта JVM; повторные отметки с тем же именем игнорируются.
+     */
+    public static void milestone(String name) {
+        String prefix = String.format("%-28s", "[" + name + "]");
+        synchronized (ENTRIES) {
+            if (ENTRIES.stream().noneMatch(entry -> entry.startsWith(prefix))) {
+                ENTRIES.add(String.format("%s %8d мс от старта JVM", prefix, sinceJvmStart().toMillis()));
+            }
+        }
+    }
+
+    /**
+     * Возвращает отчет: время до main и записанные этапы в порядке завершения.
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        Instant jvmStarted = ProcessHandle.current().info().startInstant().orElse(MAIN_STARTED);
+        lines.add(String.format("%-28s %8d мс", "JVM до main", Duration.between(jvmStarted, MAIN_STARTED).toMillis()));
+        synchronized (ENTRIES) {
+            lines.addAll(ENTRIES);
+        }
+        return lines;
+    }
+
+    private static Duration sinceJvmStart() {
+        Instant jvmStarted = ProcessHandle.current().info().startInstant().orElse(MAIN_STARTED);
+        return Duration.between(jvmStarted, Instant.now());
+    }
+
+    private static void add(String entry) {
+        synchronized (ENTRIES) {
+            ENTRIES.add(entry);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.vsu.cs.odinaev.model;
+
+/**
+ * Итог пакетного изменения статусов задач.
+ * Задачи, у которых статус уже совпадал с новым, в updatedCount не входят.
+ *
+ * @param requestedCount количество запрошенных изменений
+ * @param updatedCount   количество строк, статус которых действительно изменился
+ * @param elapsedNanos   длительность операции в наносекундах
+ */
+public record BulkUpdateResult(int requestedCount, int updatedCount, long elapsedNanos) {
+
+    /**
+     * Количество изменений, не затронувших ни одной строки
+     */
+    public int unchangedCount() {
+        return requestedCount - updatedCount;
+    }
+}
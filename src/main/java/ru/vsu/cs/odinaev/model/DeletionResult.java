@@ -0,0 +1,11 @@
+package ru.vsu.cs.odinaev.model;
+
+/**
+ * Количество строк, удаленных каскадным удалением групп.
+ *
+ * @param groups   количество удаленных групп
+ * @param students количество удаленных вместе с группами студентов
+ * @param tasks    количество удаленных вместе со студентами задач
+ */
+public record DeletionResult(int groups, int students, int tasks) {
+}
@@ -0,0 +1,31 @@
+package ru.vsu.cs.odinaev.model;
+
+import java.util.List;
+
+/**
+ * Отчет по учебной группе: сама группа и прогресс каждого ее студента.
+ * Студенты упорядочены по имени.
+ *
+ * @param group    группа, по которой построен отчет
+ * @param students прогресс студентов группы (пустой список, если в группе нет студентов)
+ */
+public record GroupReport(Group group, List<StudentProgress> students) {
+
+    /**
+     * Возвращает количество студентов в отчете.
+     *
+     * @return количество студентов группы
+     */
+    public int studentsCount() {
+        return students.size();
+    }
+
+    /**
+     * Возвращает суммарное количество сданных задач по группе.
+     *
+     * @return количество сданных задач всех студентов группы
+     */
+    public int totalCompleted() {
+        return students.stream().mapToInt(StudentProgress::completedTasks).sum();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.vsu.cs.odinaev.model;
+
+/**
+ * Группа вместе с агрегированной статистикой по ее студентам и задачам.
+ * Используется для вывода списка групп без отдельного запроса на каждую группу.
+ *
+ * @param group          учебная группа
+ * @param studentsCount  количество студентов в группе
+ * @param submittedTasks количество сданных задач всех студентов группы
+ * @param totalTasks     общее количество задач всех студентов группы
+ */
+public record GroupStatistics(Group group, int studentsCount, int submittedTasks, int totalTasks) {
+}
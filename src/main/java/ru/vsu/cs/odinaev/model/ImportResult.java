@@ -0,0 +1,40 @@
+package ru.vsu.cs.odinaev.model;
+
+import java.util.List;
+
+/**
+ * Итог массового импорта студентов из файла.
+ *
+ * @param importedCount количество успешно созданных студентов
+ * @param rejectedRows  строки файла, не прошедшие проверку
+ * @param elapsedNanos  длительность импорта в наносекундах
+ */
+public record ImportResult(int importedCount, List<RejectedRow> rejectedRows, long elapsedNanos) {
+
+    /**
+     * Возвращает общее количество обработанных строк файла.
+     *
+     * @return количество принятых и отклоненных строк
+     */
+    public int processedCount() {
+        return importedCount + rejectedRows.size();
+    }
+
+    /**
+     * Возвращает скорость импорта.
+     *
+     * @return количество обработанных строк в секунду
+     */
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : processedCount() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Строка файла импорта, отклоненная при проверке.
+     *
+     * @param line   номер строки (для JSON — номер записи в массиве)
+     * @param reason причина отклонения
+     */
+    public record RejectedRow(long line, String reason) {
+    }
+}
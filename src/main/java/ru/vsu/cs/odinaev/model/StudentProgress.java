@@ -0,0 +1,12 @@
+package ru.vsu.cs.odinaev.model;
+
+/**
+ * Строка отчета по группе: студент и его прогресс по задачам.
+ * Формируется одним агрегирующим запросом, без загрузки самих задач.
+ *
+ * @param student        студент группы
+ * @param completedTasks количество сданных задач
+ * @param totalTasks     общее количество задач студента
+ */
+public record StudentProgress(Student student, int completedTasks, int totalTasks) {
+}
@@ -0,0 +1,28 @@
+package ru.vsu.cs.odinaev.model;
+
+import java.util.List;
+
+/**
+ * Сдача обязательных задач по одной или нескольким группам (например, по всему курсу).
+ * Считается по индексу статусов без обращения к таблице задач.
+ *
+ * @param studentsCount      количество студентов
+ * @param submittedByTask    количество студентов, сдавших задачу, по номерам задач начиная с 1
+ * @param completedAllCount  количество студентов, сдавших все задачи
+ */
+public record TaskCompletion(int studentsCount, List<Integer> submittedByTask, int completedAllCount) {
+
+    /**
+     * Возвращает долю студентов, сдавших задачу с указанным номером, от 0 до 1.
+     */
+    public double submittedRate(int taskNumber) {
+        return studentsCount == 0 ? 0 : submittedByTask.get(taskNumber - 1) / (double) studentsCount;
+    }
+
+    /**
+     * Возвращает долю студентов, сдавших все задачи, от 0 до 1.
+     */
+    public double completedAllRate() {
+        return studentsCount == 0 ? 0 : completedAllCount / (double) studentsCount;
+    }
+}
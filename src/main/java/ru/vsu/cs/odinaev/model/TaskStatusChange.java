@@ -0,0 +1,11 @@
+package ru.vsu.cs.odinaev.model;
+
+/**
+ * Результат изменения статуса задачи: обновленная задача и имя ее студента.
+ * Возвращается тем же запросом, что и выполняет обновление.
+ *
+ * @param task        задача после обновления
+ * @param studentName имя студента, которому принадлежит задача
+ */
+public record TaskStatusChange(Task task, String studentName) {
+}
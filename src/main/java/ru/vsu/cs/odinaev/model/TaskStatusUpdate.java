@@ -0,0 +1,13 @@
+package ru.vsu.cs.odinaev.model;
+
+import java.util.UUID;
+
+/**
+ * Одно изменение статуса в пакетной отметке задач.
+ *
+ * @param studentId  UUID студента
+ * @param taskNumber номер задачи студента
+ * @param status     новый статус задачи
+ */
+public record TaskStatusUpdate(UUID studentId, int taskNumber, TaskStatus status) {
+}
@@ -0,0 +1,121 @@
+package ru.vsu.cs.odinaev.repository;
+
+import ru.vsu.cs.odinaev.cache.LruCache;
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.model.DeletionResult;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
+import ru.vsu.cs.odinaev.model.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Кэширующий репозиторий групп (read-through): findById и existsById обслуживаются из кэша,
+ * промах загружает строку и кэширует ее, любая запись сбрасывает затронутые записи.
+ * Удаление групп каскадно удаляет студентов, поэтому сбрасывает и кэш студентов.
+ * Кэш сбрасывается после записи в базу и еще раз после фиксации: до них параллельный findById
+ * мог снова закэшировать старую строку.
+ * Группы хранятся и отдаются копиями, чтобы изменение полученного объекта не портило кэш.
+ */
+public class CachingGroupRepository implements IGroupRepository {
+    private final IGroupRepository delegate;
+    private final LruCache<UUID, Group> groupCache;
+    private final LruCache<UUID, Student> studentCache;
+    private final ITransactionManager transactionManager;
+
+    public CachingGroupRepository(IGroupRepository delegate, LruCache<UUID, Group> groupCache,
+                                  LruCache<UUID, Student> studentCache, ITransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.groupCache = groupCache;
+        this.studentCache = studentCache;
+        this.transactionManager = transactionManager;
+    }
+
+    public void save(Group group) {
+        delegate.save(group);
+        invalidate(group.getId());
+    }
+
+    public Optional<Group> findById(UUID id) {
+        Optional<Group> cached = groupCache.get(id);
+        if (cached.isPresent()) {
+            return cached.map(CachingGroupRepository::copy);
+        }
+
+        Optional<Group> group = delegate.findById(id);
+        group.ifPresent(this::cache);
+        return group;
+    }
+
+    public List<Group> findAll() {
+        return delegate.findAll();
+    }
+
+    public List<GroupStatistics> findAllWithStatistics() {
+        return delegate.findAllWithStatistics();
+    }
+
+    public void streamAllWithStatistics(Consumer<GroupStatistics> action) {
+        delegate.streamAllWithStatistics(action);
+    }
+
+    public List<GroupStatistics> findPageWithStatistics(UUID afterId, int limit) {
+        return delegate.findPageWithStatistics(afterId, limit);
+    }
+
+    public void update(Group group) {
+        delegate.update(group);
+        invalidate(group.getId());
+    }
+
+    public void delete(UUID id) {
+        delegate.delete(id);
+        invalidate(id);
+        clearStudents();
+    }
+
+    public DeletionResult deleteAll(Collection<UUID> ids) {
+        DeletionResult result = delegate.deleteAll(ids);
+        ids.forEach(this::invalidate);
+        clearStudents();
+        return result;
+    }
+
+    public boolean existsById(UUID id) {
+        // Проверка группы повторяется при каждой операции со студентами: промах загружает строку в кэш
+        return findById(id).isPresent();
+    }
+
+    public Optional<GroupReport> findReport(UUID groupId) {
+        return delegate.findReport(groupId);
+    }
+
+    /**
+     * Вызывается после записи в делегат: вне транзакции afterCommit выполняется сразу, поэтому сброс до записи
+     * оставил бы окно, в котором параллельное чтение снова кладет в кэш старую строку.
+     */
+    private void invalidate(UUID id) {
+        groupCache.invalidate(id);
+        transactionManager.afterCommit(() -> groupCache.invalidate(id));
+    }
+
+    private void clearStudents() {
+        studentCache.clear();
+        transactionManager.afterCommit(studentCache::clear);
+    }
+
+    private void cache(Group group) {
+        groupCache.put(group.getId(), copy(group));
+        // Строка, прочитанная в транзакции, могла быть изменена ею же — при откате сбрасываем
+        transactionManager.onRollback(() -> groupCache.invalidate(group.getId()));
+    }
+
+    private static Group copy(Group group) {
+        return new Group(group.getId(), group.getName(), group.getCourseNumber());
+    }
+}
@@ -0,0 +1,114 @@
+package ru.vsu.cs.odinaev.repository;
+
+import ru.vsu.cs.odinaev.cache.LruCache;
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Кэширующий репозиторий студентов (read-through): findById и existsById обслуживаются из кэша,
+ * промах загружает строку и кэширует ее, любая запись сбрасывает затронутые записи.
+ * Кэш сбрасывается после записи в базу и еще раз после фиксации: до них параллельный findById
+ * мог снова закэшировать старую строку.
+ * Студенты хранятся и отдаются копиями, чтобы изменение полученного объекта не портило кэш.
+ */
+public class CachingStudentRepository implements IStudentRepository {
+    private final IStudentRepository delegate;
+    private final LruCache<UUID, Student> studentCache;
+    private final ITransactionManager transactionManager;
+
+    public CachingStudentRepository(IStudentRepository delegate, LruCache<UUID, Student> studentCache,
+                                    ITransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.studentCache = studentCache;
+        this.transactionManager = transactionManager;
+    }
+
+    public void save(Student student) {
+        delegate.save(student);
+        invalidate(student.getId());
+    }
+
+    public void saveAll(List<Student> students) {
+        delegate.saveAll(students);
+        students.forEach(student -> invalidate(student.getId()));
+    }
+
+    public Optional<Student> findById(UUID id) {
+        Optional<Student> cached = studentCache.get(id);
+        if (cached.isPresent()) {
+            return cached.map(CachingStudentRepository::copy);
+        }
+
+        Optional<Student> student = delegate.findById(id);
+        student.ifPresent(this::cache);
+        return student;
+    }
+
+    public List<Student> findByGroupId(UUID groupId) {
+        return delegate.findByGroupId(groupId);
+    }
+
+    public int countByGroupId(UUID groupId) {
+        return delegate.countByGroupId(groupId);
+    }
+
+    public List<Student> findAll() {
+        return delegate.findAll();
+    }
+
+    public void streamAll(Consumer<Student> action) {
+        delegate.streamAll(action);
+    }
+
+    public List<Student> findAllPage(UUID afterId, int limit) {
+        return delegate.findAllPage(afterId, limit);
+    }
+
+    public void streamProgressByGroupId(UUID groupId, Consumer<StudentProgress> action) {
+        delegate.streamProgressByGroupId(groupId, action);
+    }
+
+    public List<StudentProgress> findProgressPageByGroupId(UUID groupId, UUID afterId, int limit) {
+        return delegate.findProgressPageByGroupId(groupId, afterId, limit);
+    }
+
+    public void update(Student student) {
+        delegate.update(student);
+        invalidate(student.getId());
+    }
+
+    public void delete(UUID id) {
+        delegate.delete(id);
+        invalidate(id);
+    }
+
+    public boolean existsById(UUID studentId) {
+        // Промах загружает строку в кэш: следующие проверки того же студента не идут в базу
+        return findById(studentId).isPresent();
+    }
+
+    /**
+     * Вызывается после записи в делегат: вне транзакции afterCommit выполняется сразу, поэтому сброс до записи
+     * оставил бы окно, в котором параллельное чтение снова кладет в кэш старую строку.
+     */
+    private void invalidate(UUID id) {
+        studentCache.invalidate(id);
+        transactionManager.afterCommit(() -> studentCache.invalidate(id));
+    }
+
+    private void cache(Student student) {
+        studentCache.put(student.getId(), copy(student));
+        // Строка, прочитанная в транзакции, могла быть изменена ею же — при откате сбрасываем
+        transactionManager.onRollback(() -> studentCache.invalidate(student.getId()));
+    }
+
+    private static Student copy(Student student) {
+        return new Student(student.getId(), student.getName(), student.getGroupId());
+    }
+}
@@ -1,18 +1,64 @@
 package ru.vsu.cs.odinaev.repository;
 
 import ru.vsu.cs.odinaev.database.DatabaseManager;
+import ru.vsu.cs.odinaev.model.DeletionResult;
 import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+
+public class GroupRepository implements IGroupRepository, IQueryCatalog {
+    private static final String SAVE_SQL = "INSERT INTO groups (id, name, course_number) VALUES (?, ?, ?)";
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM groups WHERE id = ?";
+    private static final String EXISTS_BY_ID_SQL = "SELECT 1 FROM groups WHERE id = ? LIMIT 1";
+    private static final String FIND_ALL_SQL = "SELECT * FROM groups ORDER BY name, id";
+    // Счетчики группы поддерживает ProgressTrigger, поэтому студенты и задачи не агрегируются
+    private static final String FIND_ALL_WITH_STATISTICS_SQL =
+            "SELECT id, name, course_number, students_count, total_tasks, submitted_tasks FROM groups ORDER BY name, id";
+    private static final String FIND_PAGE_WITH_STATISTICS_SQL = """
+            SELECT id, name, course_number, students_count, total_tasks, submitted_tasks FROM groups
+            ORDER BY name, id
+            LIMIT ?
+            """;
+    // Страница продолжается после группы с переданным id: ее ключ (name, id) берется подзапросом
+    private static final String FIND_PAGE_WITH_STATISTICS_AFTER_SQL = """
+            SELECT id, name, course_number, students_count, total_tasks, submitted_tasks FROM groups
+            WHERE (name, id) > ((SELECT name FROM groups WHERE id = ?), ?)
+            ORDER BY name, id
+            LIMIT ?
+            """;
+    private static final String UPDATE_SQL = "UPDATE groups SET name = ?, course_number = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM groups WHERE id = ?";
+    private static final String COUNT_CASCADE_SQL = """
+            SELECT COALESCE(SUM(students_count), 0) AS students, COALESCE(SUM(total_tasks), 0) AS tasks
+            FROM groups
+            WHERE id = ANY(?)
+            """;
+    private static final String DELETE_ALL_SQL = "DELETE FROM groups WHERE id = ANY(?)";
+    private static final String FIND_REPORT_SQL = """
+            SELECT g.id AS group_id, g.name AS group_name, g.course_number,
+                   s.id AS student_id, s.name AS student_name,
+                   s.total_tasks, s.submitted_tasks AS completed_tasks
+            FROM groups g
+            LEFT JOIN students s ON s.group_id = g.id
+            WHERE g.id = ?
+            ORDER BY s.name, s.id
+            """;
 
-public class GroupRepository implements IGroupRepository {
     private final DatabaseManager dbManager;
 
     public GroupRepository() {
@@ -20,12 +66,10 @@ public class GroupRepository implements IGroupRepository {
     }
 
     public void save(Group group) {
-        String sql = "INSERT INTO groups (id, name, course_number) VALUES (?, ?, ?)";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
 
-            stmt.setString(1, group.getId().toString());
+            stmt.setObject(1, group.getId());
             stmt.setString(2, group.getName());
             stmt.setInt(3, group.getCourseNumber());
             stmt.executeUpdate();
@@ -36,12 +80,10 @@ public class GroupRepository implements IGroupRepository {
     }
 
     public Optional<Group> findById(UUID id) {
-        String sql = "SELECT * FROM groups WHERE id = ?";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
@@ -55,11 +97,10 @@ public class GroupRepository implements IGroupRepository {
     }
 
     public List<Group> findAll() {
-        String sql = "SELECT * FROM groups ORDER BY name";
         List<Group> groups = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -72,15 +113,81 @@ public class GroupRepository implements IGroupRepository {
         }
     }
 
-    public void update(Group group) {
-        String sql = "UPDATE groups SET name = ?, course_number = ? WHERE id = ?";
+    public List<GroupStatistics> findAllWithStatistics() {
+        List<GroupStatistics> statistics = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_WITH_STATISTICS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                statistics.add(mapStatistics(rs));
+            }
+            return statistics;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find groups with statistics", e);
+        }
+    }
+
+    /**
+     * Передает группы со статистикой в action по мере чтения результата, не собирая их в список.
+     * Драйверу передается размер выборки из database.fetch-size.
+     */
+    public void streamAllWithStatistics(Consumer<GroupStatistics> action) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_WITH_STATISTICS_SQL)) {
+
+            stmt.setFetchSize(dbManager.getFetchSize());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapStatistics(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream groups with statistics", e);
+        }
+    }
+
+    /**
+     * Возвращает не более limit групп со статистикой в порядке (name, id), следующих за группой afterId;
+     * при afterId == null — первую страницу. Если группы afterId уже нет, страница пуста.
+     */
+    public List<GroupStatistics> findPageWithStatistics(UUID afterId, int limit) {
+        List<GroupStatistics> statistics = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(afterId == null
+                     ? FIND_PAGE_WITH_STATISTICS_SQL : FIND_PAGE_WITH_STATISTICS_AFTER_SQL)) {
+
+            int index = 1;
+            if (afterId != null) {
+                stmt.setObject(index++, afterId);
+                stmt.setObject(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    statistics.add(mapStatistics(rs));
+                }
+            }
+            return statistics;
 
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find groups page with statistics", e);
+        }
+    }
+
+    public void update(Group group) {
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
             stmt.setString(1, group.getName());
             stmt.setInt(2, group.getCourseNumber());
-            stmt.setString(3, group.getId().toString());
+            stmt.setObject(3, group.getId());
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -89,12 +196,10 @@ public class GroupRepository implements IGroupRepository {
     }
 
     public void delete(UUID id) {
-        String sql = "DELETE FROM groups WHERE id = ?";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -102,15 +207,118 @@ public class GroupRepository implements IGroupRepository {
         }
     }
 
+    /**
+     * Удаляет группы одним оператором DELETE. Студенты и задачи удаляются
+     * каскадно внешними ключами (ON DELETE CASCADE), их количество
+     * берется заранее из счетчиков групп тем же соединением.
+     */
+    public DeletionResult deleteAll(Collection<UUID> ids) {
+        UUID[] idArray = ids.stream().distinct().toArray(UUID[]::new);
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement countStmt = conn.prepareStatement(COUNT_CASCADE_SQL);
+             PreparedStatement deleteStmt = conn.prepareStatement(DELETE_ALL_SQL)) {
+
+            countStmt.setObject(1, idArray);
+            int students;
+            int tasks;
+            try (ResultSet rs = countStmt.executeQuery()) {
+                rs.next();
+                students = rs.getInt("students");
+                tasks = rs.getInt("tasks");
+            }
+
+            deleteStmt.setObject(1, idArray);
+            int groups = deleteStmt.executeUpdate();
+
+            return new DeletionResult(groups, students, tasks);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to delete groups", e);
+        }
+    }
+
+    public Optional<GroupReport> findReport(UUID groupId) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_REPORT_SQL)) {
+
+            stmt.setObject(1, groupId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                Group group = null;
+                List<StudentProgress> students = new ArrayList<>();
+
+                while (rs.next()) {
+                    if (group == null) {
+                        group = new Group(
+                                rs.getObject("group_id", UUID.class),
+                                rs.getString("group_name"),
+                                rs.getInt("course_number")
+                        );
+                    }
+
+                    // LEFT JOIN дает одну строку с NULL, если в группе нет студентов
+                    UUID studentId = rs.getObject("student_id", UUID.class);
+                    if (studentId != null) {
+                        Student student = new Student(studentId, rs.getString("student_name"), group.getId());
+                        students.add(new StudentProgress(student, rs.getInt("completed_tasks"), rs.getInt("total_tasks")));
+                    }
+                }
+
+                return group == null ? Optional.empty() : Optional.of(new GroupReport(group, students));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to build group report", e);
+        }
+    }
+
     private Group mapGroup(ResultSet rs) throws SQLException {
         return new Group(
-                UUID.fromString(rs.getString("id")),
+                rs.getObject("id", UUID.class),
                 rs.getString("name"),
                 rs.getInt("course_number")
         );
     }
 
-    public boolean existsById(UUID id){
-        return findById(id).isPresent();
+    private GroupStatistics mapStatistics(ResultSet rs) throws SQLException {
+        return new GroupStatistics(
+                mapGroup(rs),
+                rs.getInt("students_count"),
+                rs.getInt("submitted_tasks"),
+                rs.getInt("total_tasks")
+        );
+    }
+
+    public boolean existsById(UUID id) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_BY_ID_SQL)) {
+
+            stmt.setObject(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check group existence", e);
+        }
+    }
+
+    public Map<String, String> queries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("save", SAVE_SQL);
+        queries.put("findById", FIND_BY_ID_SQL);
+        queries.put("existsById", EXISTS_BY_ID_SQL);
+        queries.put("findAll", FIND_ALL_SQL);
+        queries.put("findAllWithStatistics", FIND_ALL_WITH_STATISTICS_SQL);
+        queries.put("findPageWithStatistics", FIND_PAGE_WITH_STATISTICS_SQL);
+        queries.put("findPageWithStatistics.after", FIND_PAGE_WITH_STATISTICS_AFTER_SQL);
+        queries.put("update", UPDATE_SQL);
+        queries.put("delete", DELETE_SQL);
+        queries.put("deleteAll.count", COUNT_CASCADE_SQL);
+        queries.put("deleteAll", DELETE_ALL_SQL);
+        queries.put("findReport", FIND_REPORT_SQL);
+        return queries;
     }
 }
\ No newline at end of file
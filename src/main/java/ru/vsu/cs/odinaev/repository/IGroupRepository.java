@@ -1,16 +1,26 @@
 package ru.vsu.cs.odinaev.repository;
 
+import ru.vsu.cs.odinaev.model.DeletionResult;
 import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface IGroupRepository {
     void save(Group group);
     Optional<Group> findById(UUID id);
     List<Group> findAll();
+    List<GroupStatistics> findAllWithStatistics();
+    void streamAllWithStatistics(Consumer<GroupStatistics> action);
+    List<GroupStatistics> findPageWithStatistics(UUID afterId, int limit);
     void update(Group group);
     void delete(UUID id);
+    DeletionResult deleteAll(Collection<UUID> ids);
     boolean existsById(UUID id);
+    Optional<GroupReport> findReport(UUID groupId);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package ru.vsu.cs.odinaev.repository;
+
+import java.util.Map;
+
+/**
+ * Репозиторий, который может перечислить свои SQL-запросы.
+ * Используется командой explain для проверки планов выполнения и индексов.
+ */
+public interface IQueryCatalog {
+    /**
+     * Возвращает SQL-запросы репозитория по именам методов, в порядке объявления.
+     */
+    Map<String, String> queries();
+}
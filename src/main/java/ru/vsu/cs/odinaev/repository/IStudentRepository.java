@@ -1,16 +1,24 @@
 package ru.vsu.cs.odinaev.repository;
 
 import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface IStudentRepository {
     void save(Student student);
+    void saveAll(List<Student> students);
     Optional<Student> findById(UUID id);
     List<Student> findByGroupId(UUID groupId);
+    int countByGroupId(UUID groupId);
     List<Student> findAll();
+    void streamAll(Consumer<Student> action);
+    List<Student> findAllPage(UUID afterId, int limit);
+    void streamProgressByGroupId(UUID groupId, Consumer<StudentProgress> action);
+    List<StudentProgress> findProgressPageByGroupId(UUID groupId, UUID afterId, int limit);
     void update(Student student);
     void delete(UUID id);
     boolean existsById(UUID studentId);
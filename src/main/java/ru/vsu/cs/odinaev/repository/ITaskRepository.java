@@ -2,17 +2,28 @@ package ru.vsu.cs.odinaev.repository;
 
 import ru.vsu.cs.odinaev.model.Task;
 import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface ITaskRepository {
     void save(Task task);
+    void saveAll(List<Task> tasks);
     Optional<Task> findById(UUID id);
+    boolean existsById(UUID taskId);
     List<Task> findByStudentId(UUID studentId);
+    List<Task> findByGroupId(UUID groupId);
     List<Task> findByStatus(TaskStatus status);
+    void streamByStatus(TaskStatus status, Consumer<Task> action);
+    List<Task> findPageByStatus(TaskStatus status, UUID afterId, int limit);
     void updateStatus(UUID taskId, TaskStatus status);
+    Optional<TaskStatusChange> updateStatusByStudentIdAndNumber(UUID studentId, int number, TaskStatus status);
+    int updateStatusBatch(List<TaskStatusUpdate> updates);
+    int updateStatusByGroupIdAndNumber(UUID groupId, int number, TaskStatus status);
     void delete(UUID id);
     Optional<Task> findByStudentIdAndNumber(UUID studentId, int number);
     void deleteByStudentId(UUID studentId);
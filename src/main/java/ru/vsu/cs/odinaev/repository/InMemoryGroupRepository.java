@@ -0,0 +1,131 @@
+package ru.vsu.cs.odinaev.repository;
+
+import ru.vsu.cs.odinaev.database.InMemoryStore;
+import ru.vsu.cs.odinaev.model.DeletionResult;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий групп поверх {@link InMemoryStore}. Статистика и отчеты читаются
+ * из счетчиков прогресса групп и студентов, которые хранилище ведет при каждом изменении задач.
+ */
+public class InMemoryGroupRepository implements IGroupRepository {
+    private final InMemoryStore store;
+
+    public InMemoryGroupRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    public void save(Group group) {
+        store.write(() -> {
+            if (store.containsGroup(group.getId())) {
+                throw new IllegalStateException("Failed to save group: duplicate id " + group.getId());
+            }
+            store.putGroup(group);
+        });
+    }
+
+    public Optional<Group> findById(UUID id) {
+        return store.read(() -> store.findGroup(id));
+    }
+
+    public List<Group> findAll() {
+        return store.read(store::groups);
+    }
+
+    public List<GroupStatistics> findAllWithStatistics() {
+        return store.read(() -> statistics(store.groups()));
+    }
+
+    /**
+     * Снимает статистику под блокировкой чтения и передает ее в action уже без блокировки.
+     */
+    public void streamAllWithStatistics(Consumer<GroupStatistics> action) {
+        findAllWithStatistics().forEach(action);
+    }
+
+    public List<GroupStatistics> findPageWithStatistics(UUID afterId, int limit) {
+        return store.read(() -> {
+            if (afterId == null) {
+                return statistics(InMemoryStore.pageAfter(store.groups(), InMemoryStore.GROUP_ORDER, null, limit));
+            }
+            // Если группы afterId уже нет, страница пуста, как в SQL-репозитории
+            return store.findGroup(afterId)
+                    .map(after -> statistics(InMemoryStore.pageAfter(store.groups(), InMemoryStore.GROUP_ORDER, after, limit)))
+                    .orElse(List.of());
+        });
+    }
+
+    private List<GroupStatistics> statistics(List<Group> groups) {
+        List<GroupStatistics> statistics = new ArrayList<>();
+        for (Group group : groups) {
+            UUID id = group.getId();
+            statistics.add(new GroupStatistics(group, store.countStudentsOfGroup(id),
+                    store.countTasksOfGroup(id, TaskStatus.SUBMITTED), store.countTasksOfGroup(id)));
+        }
+        return statistics;
+    }
+
+    public void update(Group group) {
+        store.write(() -> {
+            if (store.containsGroup(group.getId())) {
+                store.putGroup(group);
+            }
+        });
+    }
+
+    public void delete(UUID id) {
+        store.write(() -> {
+            store.removeGroup(id);
+        });
+    }
+
+    /**
+     * Удаляет группы вместе со студентами и задачами, подсчитывая удаленные записи до удаления.
+     */
+    public DeletionResult deleteAll(Collection<UUID> ids) {
+        return store.write(() -> {
+            int groups = 0;
+            int students = 0;
+            int tasks = 0;
+
+            for (UUID id : ids.stream().distinct().toList()) {
+                if (!store.containsGroup(id)) {
+                    continue;
+                }
+                students += store.countStudentsOfGroup(id);
+                tasks += store.countTasksOfGroup(id);
+                store.removeGroup(id);
+                groups++;
+            }
+            return new DeletionResult(groups, students, tasks);
+        });
+    }
+
+    public boolean existsById(UUID id) {
+        return store.read(() -> store.containsGroup(id));
+    }
+
+    public Optional<GroupReport> findReport(UUID groupId) {
+        return store.read(() -> store.findGroup(groupId).map(group -> {
+            List<StudentProgress> students = new ArrayList<>();
+            for (Student student : store.studentsOfGroup(groupId)) {
+                students.add(new StudentProgress(student,
+                        store.countTasksOfStudent(student.getId(), TaskStatus.SUBMITTED),
+                        store.countTasksOfStudent(student.getId())));
+            }
+            return new GroupReport(group, students);
+        }));
+    }
+}
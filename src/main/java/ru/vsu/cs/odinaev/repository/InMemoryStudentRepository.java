@@ -0,0 +1,109 @@
+package ru.vsu.cs.odinaev.repository;
+
+import ru.vsu.cs.odinaev.database.InMemoryStore;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий студентов поверх {@link InMemoryStore}; студенты группы берутся из индекса по группе.
+ * Потоковые выборки снимают копию под блокировкой чтения и вызывают action уже без нее,
+ * чтобы обработчик мог сам обращаться к хранилищу, в том числе на запись.
+ */
+public class InMemoryStudentRepository implements IStudentRepository {
+    private final InMemoryStore store;
+
+    public InMemoryStudentRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    public void save(Student student) {
+        store.write(() -> insert(student));
+    }
+
+    public void saveAll(List<Student> students) {
+        store.write(() -> students.forEach(this::insert));
+    }
+
+    private void insert(Student student) {
+        if (store.containsStudent(student.getId())) {
+            throw new IllegalStateException("Failed to save student: duplicate id " + student.getId());
+        }
+        store.putStudent(student);
+    }
+
+    public Optional<Student> findById(UUID id) {
+        return store.read(() -> store.findStudent(id));
+    }
+
+    public List<Student> findByGroupId(UUID groupId) {
+        return store.read(() -> store.studentsOfGroup(groupId));
+    }
+
+    public int countByGroupId(UUID groupId) {
+        return store.read(() -> store.countStudentsOfGroup(groupId));
+    }
+
+    public List<Student> findAll() {
+        return store.read(store::students);
+    }
+
+    public void streamAll(Consumer<Student> action) {
+        findAll().forEach(action);
+    }
+
+    public List<Student> findAllPage(UUID afterId, int limit) {
+        return store.read(() -> page(store.students(), afterId, limit));
+    }
+
+    public void streamProgressByGroupId(UUID groupId, Consumer<StudentProgress> action) {
+        store.read(() -> progress(store.studentsOfGroup(groupId))).forEach(action);
+    }
+
+    public List<StudentProgress> findProgressPageByGroupId(UUID groupId, UUID afterId, int limit) {
+        return store.read(() -> progress(page(store.studentsOfGroup(groupId), afterId, limit)));
+    }
+
+    /**
+     * Страница после студента afterId; если его уже нет, страница пуста, как в SQL-репозитории.
+     */
+    private List<Student> page(List<Student> sorted, UUID afterId, int limit) {
+        if (afterId == null) {
+            return InMemoryStore.pageAfter(sorted, InMemoryStore.STUDENT_ORDER, null, limit);
+        }
+        return store.findStudent(afterId)
+                .map(after -> InMemoryStore.pageAfter(sorted, InMemoryStore.STUDENT_ORDER, after, limit))
+                .orElse(List.of());
+    }
+
+    private List<StudentProgress> progress(List<Student> students) {
+        return students.stream()
+                .map(student -> new StudentProgress(student,
+                        store.countTasksOfStudent(student.getId(), TaskStatus.SUBMITTED),
+                        store.countTasksOfStudent(student.getId())))
+                .toList();
+    }
+
+    public void update(Student student) {
+        store.write(() -> {
+            if (store.containsStudent(student.getId())) {
+                store.putStudent(student);
+            }
+        });
+    }
+
+    public void delete(UUID id) {
+        store.write(() -> {
+            store.removeStudent(id);
+        });
+    }
+
+    public boolean existsById(UUID studentId) {
+        return store.read(() -> store.containsStudent(studentId));
+    }
+}
@@ -0,0 +1,152 @@
+package ru.vsu.cs.odinaev.repository;
+
+import ru.vsu.cs.odinaev.database.InMemoryStore;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий задач поверх {@link InMemoryStore}; задачи студента и задача по номеру
+ * берутся из индекса (студент, номер).
+ */
+public class InMemoryTaskRepository implements ITaskRepository {
+    private final InMemoryStore store;
+
+    public InMemoryTaskRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    public void save(Task task) {
+        store.write(() -> insert(task));
+    }
+
+    public void saveAll(List<Task> tasks) {
+        store.write(() -> tasks.forEach(this::insert));
+    }
+
+    private void insert(Task task) {
+        if (store.containsTask(task.getId())) {
+            throw new IllegalStateException("Failed to save task: duplicate id " + task.getId());
+        }
+        store.putTask(task);
+    }
+
+    public Optional<Task> findById(UUID id) {
+        return store.read(() -> store.findTask(id));
+    }
+
+    public boolean existsById(UUID taskId) {
+        return store.read(() -> store.containsTask(taskId));
+    }
+
+    public List<Task> findByStudentId(UUID studentId) {
+        return store.read(() -> store.tasksOfStudent(studentId));
+    }
+
+    public List<Task> findByGroupId(UUID groupId) {
+        return store.read(() -> store.studentIdsOfGroup(groupId).stream()
+                .flatMap(studentId -> store.tasksOfStudent(studentId).stream())
+                .toList());
+    }
+
+    public List<Task> findByStatus(TaskStatus status) {
+        return store.read(() -> store.tasks().stream().filter(task -> task.getStatus() == status).toList());
+    }
+
+    /**
+     * Снимает задачи под блокировкой чтения и передает их в action уже без блокировки.
+     */
+    public void streamByStatus(TaskStatus status, Consumer<Task> action) {
+        findByStatus(status).forEach(action);
+    }
+
+    public List<Task> findPageByStatus(TaskStatus status, UUID afterId, int limit) {
+        return store.read(() -> {
+            List<Task> tasks = findByStatus(status);
+            if (afterId == null) {
+                return InMemoryStore.pageAfter(tasks, InMemoryStore.TASK_ORDER, null, limit);
+            }
+            // Если задачи afterId уже нет, страница пуста, как в SQL-репозитории
+            return store.findTask(afterId)
+                    .map(after -> InMemoryStore.pageAfter(tasks, InMemoryStore.TASK_ORDER, after, limit))
+                    .orElse(List.of());
+        });
+    }
+
+    public void updateStatus(UUID taskId, TaskStatus status) {
+        store.write(() -> {
+            store.findTask(taskId).ifPresent(task -> changeStatus(task, status));
+        });
+    }
+
+    public Optional<TaskStatusChange> updateStatusByStudentIdAndNumber(UUID studentId, int number, TaskStatus status) {
+        return store.write(() -> store.findTask(studentId, number).map(task -> {
+            changeStatus(task, status);
+            String studentName = store.findStudent(studentId).map(Student::getName).orElseThrow();
+            return new TaskStatusChange(task, studentName);
+        }));
+    }
+
+    /**
+     * Изменяет статусы задач под одной блокировкой хранилища.
+     *
+     * @return количество задач, статус которых действительно изменился
+     */
+    public int updateStatusBatch(List<TaskStatusUpdate> updates) {
+        return store.write(() -> {
+            int updated = 0;
+            for (TaskStatusUpdate update : updates) {
+                Optional<Task> task = store.findTask(update.studentId(), update.taskNumber());
+                if (task.isPresent() && task.get().getStatus() != update.status()) {
+                    changeStatus(task.get(), update.status());
+                    updated++;
+                }
+            }
+            return updated;
+        });
+    }
+
+    public int updateStatusByGroupIdAndNumber(UUID groupId, int number, TaskStatus status) {
+        return store.write(() -> {
+            int updated = 0;
+            for (UUID studentId : List.copyOf(store.studentIdsOfGroup(groupId))) {
+                Optional<Task> task = store.findTask(studentId, number);
+                if (task.isPresent() && task.get().getStatus() != status) {
+                    changeStatus(task.get(), status);
+                    updated++;
+                }
+            }
+            return updated;
+        });
+    }
+
+    private void changeStatus(Task task, TaskStatus status) {
+        task.setStatus(status);
+        store.putTask(task);
+    }
+
+    public void delete(UUID id) {
+        store.write(() -> {
+            store.removeTask(id);
+        });
+    }
+
+    public Optional<Task> findByStudentIdAndNumber(UUID studentId, int number) {
+        return store.read(() -> store.findTask(studentId, number));
+    }
+
+    public void deleteByStudentId(UUID studentId) {
+        store.write(() -> store.tasksOfStudent(studentId).forEach(task -> store.removeTask(task.getId())));
+    }
+
+    public int countByStudentIdAndStatus(UUID studentId, TaskStatus status) {
+        return store.read(() -> store.countTasksOfStudent(studentId, status));
+    }
+}
@@ -2,17 +2,49 @@ package ru.vsu.cs.odinaev.repository;
 
 import ru.vsu.cs.odinaev.database.DatabaseManager;
 import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+
+public class StudentRepository implements IStudentRepository, IQueryCatalog {
+    private static final String SAVE_SQL = "INSERT INTO students (id, name, group_id) VALUES (?, ?, ?)";
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM students WHERE id = ?";
+    private static final String EXISTS_BY_ID_SQL = "SELECT 1 FROM students WHERE id = ? LIMIT 1";
+    // H2 выбирает индекс внешнего ключа по group_id и сортирует результат отдельно;
+    // составной индекс (group_id, name, id) отдает строки уже упорядоченными
+    private static final String FIND_BY_GROUP_ID_SQL = "SELECT * FROM students USE INDEX (idx_students_group_name_id) WHERE group_id = ? ORDER BY group_id, name, id";
+    // Страница продолжается после строки с переданным id: ключ (name, id) этой строки берется подзапросом,
+    // и индекс отдает следующие строки без пропуска предыдущих страниц
+    private static final String FIND_PROGRESS_PAGE_BY_GROUP_ID_SQL =
+            "SELECT * FROM students USE INDEX (idx_students_group_name_id) WHERE group_id = ? ORDER BY group_id, name, id LIMIT ?";
+    private static final String FIND_PROGRESS_PAGE_BY_GROUP_ID_AFTER_SQL = """
+            SELECT * FROM students USE INDEX (idx_students_group_name_id)
+            WHERE group_id = ? AND (name, id) > ((SELECT name FROM students WHERE id = ?), ?)
+            ORDER BY group_id, name, id
+            LIMIT ?
+            """;
+    private static final String COUNT_BY_GROUP_ID_SQL = "SELECT COUNT(*) FROM students WHERE group_id = ?";
+    private static final String FIND_ALL_SQL = "SELECT * FROM students ORDER BY name, id";
+    private static final String FIND_ALL_PAGE_SQL = "SELECT * FROM students ORDER BY name, id LIMIT ?";
+    private static final String FIND_ALL_PAGE_AFTER_SQL = """
+            SELECT * FROM students
+            WHERE (name, id) > ((SELECT name FROM students WHERE id = ?), ?)
+            ORDER BY name, id
+            LIMIT ?
+            """;
+    private static final String UPDATE_SQL = "UPDATE students SET name = ?, group_id = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM students WHERE id = ?";
 
-public class StudentRepository implements IStudentRepository {
     private final DatabaseManager dbManager;
 
     public StudentRepository() {
@@ -20,14 +52,12 @@ public class StudentRepository implements IStudentRepository {
     }
 
     public void save(Student student) {
-        String sql = "INSERT INTO students (id, name, group_id) VALUES (?, ?, ?)";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
 
-            stmt.setString(1, student.getId().toString());
+            stmt.setObject(1, student.getId());
             stmt.setString(2, student.getName());
-            stmt.setString(3, student.getGroupId().toString());
+            stmt.setObject(3, student.getGroupId());
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -35,13 +65,28 @@ public class StudentRepository implements IStudentRepository {
         }
     }
 
-    public Optional<Student> findById(UUID id) {
-        String sql = "SELECT * FROM students WHERE id = ?";
+    public void saveAll(List<Student> students) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
+
+            for (Student student : students) {
+                stmt.setObject(1, student.getId());
+                stmt.setString(2, student.getName());
+                stmt.setObject(3, student.getGroupId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
 
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to save students", e);
+        }
+    }
+
+    public Optional<Student> findById(UUID id) {
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
@@ -55,13 +100,12 @@ public class StudentRepository implements IStudentRepository {
     }
 
     public List<Student> findByGroupId(UUID groupId) {
-        String sql = "SELECT * FROM students WHERE group_id = ? ORDER BY name";
         List<Student> students = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_GROUP_ID_SQL)) {
 
-            stmt.setString(1, groupId.toString());
+            stmt.setObject(1, groupId);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -74,12 +118,25 @@ public class StudentRepository implements IStudentRepository {
         }
     }
 
+    public int countByGroupId(UUID groupId) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_BY_GROUP_ID_SQL)) {
+
+            stmt.setObject(1, groupId);
+
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to count students by group id", e);
+        }
+    }
+
     public List<Student> findAll() {
-        String sql = "SELECT * FROM students ORDER BY name";
         List<Student> students = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -92,15 +149,115 @@ public class StudentRepository implements IStudentRepository {
         }
     }
 
-    public void update(Student student) {
-        String sql = "UPDATE students SET name = ?, group_id = ? WHERE id = ?";
+    /**
+     * Передает студентов в action по мере чтения результата, не собирая их в список.
+     * Драйверу передается размер выборки из database.fetch-size.
+     */
+    public void streamAll(Consumer<Student> action) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL)) {
+
+            stmt.setFetchSize(dbManager.getFetchSize());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapStudent(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream all students", e);
+        }
+    }
+
+    /**
+     * Возвращает не более limit студентов в порядке (name, id), следующих за студентом afterId;
+     * при afterId == null — первую страницу. Если студента afterId уже нет, страница пуста.
+     */
+    public List<Student> findAllPage(UUID afterId, int limit) {
+        List<Student> students = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(afterId == null ? FIND_ALL_PAGE_SQL : FIND_ALL_PAGE_AFTER_SQL)) {
+
+            int index = 1;
+            if (afterId != null) {
+                stmt.setObject(index++, afterId);
+                stmt.setObject(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(mapStudent(rs));
+                }
+            }
+            return students;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find students page", e);
+        }
+    }
+
+    /**
+     * Передает студентов группы с их счетчиками прогресса в action по мере чтения результата.
+     */
+    public void streamProgressByGroupId(UUID groupId, Consumer<StudentProgress> action) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_GROUP_ID_SQL)) {
+
+            stmt.setObject(1, groupId);
+            stmt.setFetchSize(dbManager.getFetchSize());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapProgress(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream students by group id", e);
+        }
+    }
+
+    /**
+     * Возвращает не более limit студентов группы с их прогрессом в порядке (name, id),
+     * следующих за студентом afterId; при afterId == null — первую страницу.
+     */
+    public List<StudentProgress> findProgressPageByGroupId(UUID groupId, UUID afterId, int limit) {
+        List<StudentProgress> students = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(afterId == null
+                     ? FIND_PROGRESS_PAGE_BY_GROUP_ID_SQL : FIND_PROGRESS_PAGE_BY_GROUP_ID_AFTER_SQL)) {
+
+            int index = 1;
+            stmt.setObject(index++, groupId);
+            if (afterId != null) {
+                stmt.setObject(index++, afterId);
+                stmt.setObject(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(mapProgress(rs));
+                }
+            }
+            return students;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find students page by group id", e);
+        }
+    }
+
+    public void update(Student student) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
             stmt.setString(1, student.getName());
-            stmt.setString(2, student.getGroupId().toString());
-            stmt.setString(3, student.getId().toString());
+            stmt.setObject(2, student.getGroupId());
+            stmt.setObject(3, student.getId());
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -109,12 +266,10 @@ public class StudentRepository implements IStudentRepository {
     }
 
     public void delete(UUID id) {
-        String sql = "DELETE FROM students WHERE id = ?";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -122,16 +277,48 @@ public class StudentRepository implements IStudentRepository {
         }
     }
 
-    public boolean existsById(UUID studentId){
-        return findById(studentId).isPresent();
+    public boolean existsById(UUID studentId) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_BY_ID_SQL)) {
+
+            stmt.setObject(1, studentId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
 
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check student existence", e);
+        }
     }
 
     private Student mapStudent(ResultSet rs) throws SQLException {
         return new Student(
-                UUID.fromString(rs.getString("id")),
+                rs.getObject("id", UUID.class),
                 rs.getString("name"),
-                UUID.fromString(rs.getString("group_id"))
+                rs.getObject("group_id", UUID.class)
         );
     }
+
+    // Счетчики студента поддерживает ProgressTrigger
+    private StudentProgress mapProgress(ResultSet rs) throws SQLException {
+        return new StudentProgress(mapStudent(rs), rs.getInt("submitted_tasks"), rs.getInt("total_tasks"));
+    }
+
+    public Map<String, String> queries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("save", SAVE_SQL);
+        queries.put("findById", FIND_BY_ID_SQL);
+        queries.put("existsById", EXISTS_BY_ID_SQL);
+        queries.put("findByGroupId", FIND_BY_GROUP_ID_SQL);
+        queries.put("countByGroupId", COUNT_BY_GROUP_ID_SQL);
+        queries.put("findAll", FIND_ALL_SQL);
+        queries.put("findAllPage", FIND_ALL_PAGE_SQL);
+        queries.put("findAllPage.after", FIND_ALL_PAGE_AFTER_SQL);
+        queries.put("findProgressPageByGroupId", FIND_PROGRESS_PAGE_BY_GROUP_ID_SQL);
+        queries.put("findProgressPageByGroupId.after", FIND_PROGRESS_PAGE_BY_GROUP_ID_AFTER_SQL);
+        queries.put("update", UPDATE_SQL);
+        queries.put("delete", DELETE_SQL);
+        return queries;
+    }
 }
\ No newline at end of file
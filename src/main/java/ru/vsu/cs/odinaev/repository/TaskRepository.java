@@ -3,17 +3,66 @@ package ru.vsu.cs.odinaev.repository;
 import ru.vsu.cs.odinaev.database.DatabaseManager;
 import ru.vsu.cs.odinaev.model.Task;
 import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+
+public class TaskRepository implements ITaskRepository, IQueryCatalog {
+    private static final String SAVE_SQL = "INSERT INTO tasks (id, student_id, number, status) VALUES (?, ?, ?, ?)";
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM tasks WHERE id = ?";
+    private static final String EXISTS_BY_ID_SQL = "SELECT 1 FROM tasks WHERE id = ? LIMIT 1";
+    private static final String FIND_BY_STUDENT_ID_SQL = "SELECT * FROM tasks WHERE student_id = ? ORDER BY number";
+    private static final String FIND_BY_GROUP_ID_SQL = "SELECT t.* FROM tasks t JOIN students s ON s.id = t.student_id WHERE s.group_id = ?";
+    // status в ORDER BY не меняет порядок, но позволяет H2 читать индекс (status, number) без сортировки
+    private static final String FIND_BY_STATUS_SQL = "SELECT * FROM tasks WHERE status = ? ORDER BY status, number, id";
+    private static final String FIND_PAGE_BY_STATUS_SQL = "SELECT * FROM tasks WHERE status = ? ORDER BY status, number, id LIMIT ?";
+    // Страница продолжается после задачи с переданным id: ее ключ (number, id) берется подзапросом
+    private static final String FIND_PAGE_BY_STATUS_AFTER_SQL = """
+            SELECT * FROM tasks
+            WHERE status = ? AND (number, id) > ((SELECT number FROM tasks WHERE id = ?), ?)
+            ORDER BY status, number, id
+            LIMIT ?
+            """;
+    private static final String UPDATE_STATUS_SQL = "UPDATE tasks SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    // FINAL TABLE отдает строки после UPDATE, поэтому обновление и чтение задачи с именем студента — один запрос
+    private static final String UPDATE_STATUS_BY_STUDENT_ID_AND_NUMBER_SQL = """
+            SELECT t.*, s.name AS student_name
+            FROM FINAL TABLE (
+                UPDATE tasks SET status = ?, updated_at = CURRENT_TIMESTAMP
+                WHERE student_id = ? AND number = ?
+            ) t
+            JOIN students s ON s.id = t.student_id
+            """;
+    // status <> ? не переписывает строки с тем же статусом, и счетчик обновлений показывает реальные изменения
+    private static final String UPDATE_STATUS_BATCH_SQL = """
+            UPDATE tasks SET status = ?, updated_at = CURRENT_TIMESTAMP
+            WHERE student_id = ? AND number = ? AND status <> ?
+            """;
+    private static final String UPDATE_STATUS_BY_GROUP_ID_AND_NUMBER_SQL = """
+            UPDATE tasks SET status = ?, updated_at = CURRENT_TIMESTAMP
+            WHERE student_id IN (SELECT id FROM students WHERE group_id = ?) AND number = ? AND status <> ?
+            """;
+    private static final String DELETE_SQL = "DELETE FROM tasks WHERE id = ?";
+    private static final String FIND_BY_STUDENT_ID_AND_NUMBER_SQL = "SELECT * FROM tasks WHERE student_id = ? AND number = ?";
+    private static final String DELETE_BY_STUDENT_ID_SQL = "DELETE FROM tasks WHERE student_id = ?";
+    // Счетчики студента поддерживает ProgressTrigger: число читается из строки студента без подсчета задач
+    private static final String COUNT_BY_STUDENT_ID_AND_STATUS_SQL = """
+            SELECT CASE WHEN ? = 'SUBMITTED' THEN submitted_tasks ELSE total_tasks - submitted_tasks END
+            FROM students
+            WHERE id = ?
+            """;
 
-public class TaskRepository implements ITaskRepository {
     private final DatabaseManager dbManager;
 
     public TaskRepository() {
@@ -21,13 +70,11 @@ public class TaskRepository implements ITaskRepository {
     }
 
     public void save(Task task) {
-        String sql = "INSERT INTO tasks (id, student_id, number, status) VALUES (?, ?, ?, ?)";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
 
-            stmt.setString(1, task.getId().toString());
-            stmt.setString(2, task.getStudentId().toString());
+            stmt.setObject(1, task.getId());
+            stmt.setObject(2, task.getStudentId());
             stmt.setInt(3, task.getNumber());
             stmt.setString(4, task.getStatus().name());
             stmt.executeUpdate();
@@ -37,13 +84,29 @@ public class TaskRepository implements ITaskRepository {
         }
     }
 
-    public Optional<Task> findById(UUID id) {
-        String sql = "SELECT * FROM tasks WHERE id = ?";
+    public void saveAll(List<Task> tasks) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SQL)) {
+
+            for (Task task : tasks) {
+                stmt.setObject(1, task.getId());
+                stmt.setObject(2, task.getStudentId());
+                stmt.setInt(3, task.getNumber());
+                stmt.setString(4, task.getStatus().name());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
 
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to save tasks", e);
+        }
+    }
+
+    public Optional<Task> findById(UUID id) {
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
@@ -57,13 +120,12 @@ public class TaskRepository implements ITaskRepository {
     }
 
     public List<Task> findByStudentId(UUID studentId) {
-        String sql = "SELECT * FROM tasks WHERE student_id = ? ORDER BY number";
         List<Task> tasks = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_STUDENT_ID_SQL)) {
 
-            stmt.setString(1, studentId.toString());
+            stmt.setObject(1, studentId);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -76,12 +138,30 @@ public class TaskRepository implements ITaskRepository {
         }
     }
 
+    public List<Task> findByGroupId(UUID groupId) {
+        List<Task> tasks = new ArrayList<>();
+
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_GROUP_ID_SQL)) {
+
+            stmt.setObject(1, groupId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                tasks.add(mapTask(rs));
+            }
+            return tasks;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find tasks by group id", e);
+        }
+    }
+
     public List<Task> findByStatus(TaskStatus status) {
-        String sql = "SELECT * FROM tasks WHERE status = ? ORDER BY number";
         List<Task> tasks = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_STATUS_SQL)) {
 
             stmt.setString(1, status.name());
             ResultSet rs = stmt.executeQuery();
@@ -96,14 +176,65 @@ public class TaskRepository implements ITaskRepository {
         }
     }
 
-    public void updateStatus(UUID taskId, TaskStatus status) {
-        String sql = "UPDATE tasks SET status = ? WHERE id = ?";
+    /**
+     * Передает задачи с указанным статусом в action по мере чтения результата, не собирая их в список.
+     * Драйверу передается размер выборки из database.fetch-size.
+     */
+    public void streamByStatus(TaskStatus status, Consumer<Task> action) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_STATUS_SQL)) {
+
+            stmt.setString(1, status.name());
+            stmt.setFetchSize(dbManager.getFetchSize());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapTask(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream tasks by status", e);
+        }
+    }
+
+    /**
+     * Возвращает не более limit задач с указанным статусом в порядке (number, id), следующих за задачей afterId;
+     * при afterId == null — первую страницу. Если задачи afterId уже нет, страница пуста.
+     */
+    public List<Task> findPageByStatus(TaskStatus status, UUID afterId, int limit) {
+        List<Task> tasks = new ArrayList<>();
 
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(afterId == null
+                     ? FIND_PAGE_BY_STATUS_SQL : FIND_PAGE_BY_STATUS_AFTER_SQL)) {
+
+            int index = 1;
+            stmt.setString(index++, status.name());
+            if (afterId != null) {
+                stmt.setObject(index++, afterId);
+                stmt.setObject(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(mapTask(rs));
+                }
+            }
+            return tasks;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find tasks page by status", e);
+        }
+    }
+
+    public void updateStatus(UUID taskId, TaskStatus status) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS_SQL)) {
 
             stmt.setString(1, status.name());
-            stmt.setString(2, taskId.toString());
+            stmt.setObject(2, taskId);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -111,13 +242,74 @@ public class TaskRepository implements ITaskRepository {
         }
     }
 
-    public void delete(UUID id) {
-        String sql = "DELETE FROM tasks WHERE id = ?";
+    public Optional<TaskStatusChange> updateStatusByStudentIdAndNumber(UUID studentId, int number, TaskStatus status) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS_BY_STUDENT_ID_AND_NUMBER_SQL)) {
 
+            stmt.setString(1, status.name());
+            stmt.setObject(2, studentId);
+            stmt.setInt(3, number);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new TaskStatusChange(mapTask(rs), rs.getString("student_name")));
+                }
+            }
+            return Optional.empty();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update task status by student id and number", e);
+        }
+    }
+
+    /**
+     * Изменяет статусы задач одним JDBC-пакетом.
+     *
+     * @return количество строк, статус которых действительно изменился
+     */
+    public int updateStatusBatch(List<TaskStatusUpdate> updates) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS_BATCH_SQL)) {
+
+            for (TaskStatusUpdate update : updates) {
+                stmt.setString(1, update.status().name());
+                stmt.setObject(2, update.studentId());
+                stmt.setInt(3, update.taskNumber());
+                stmt.setString(4, update.status().name());
+                stmt.addBatch();
+            }
+
+            int updated = 0;
+            for (int count : stmt.executeBatch()) {
+                updated += Math.max(count, 0);
+            }
+            return updated;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update task statuses", e);
+        }
+    }
+
+    public int updateStatusByGroupIdAndNumber(UUID groupId, int number, TaskStatus status) {
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS_BY_GROUP_ID_AND_NUMBER_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setString(1, status.name());
+            stmt.setObject(2, groupId);
+            stmt.setInt(3, number);
+            stmt.setString(4, status.name());
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update task statuses by group id", e);
+        }
+    }
+
+    public void delete(UUID id) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+
+            stmt.setObject(1, id);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -126,12 +318,10 @@ public class TaskRepository implements ITaskRepository {
     }
 
     public Optional<Task> findByStudentIdAndNumber(UUID studentId, int number) {
-        String sql = "SELECT * FROM tasks WHERE student_id = ? AND number = ?";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_STUDENT_ID_AND_NUMBER_SQL)) {
 
-            stmt.setString(1, studentId.toString());
+            stmt.setObject(1, studentId);
             stmt.setInt(2, number);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -147,12 +337,10 @@ public class TaskRepository implements ITaskRepository {
     }
 
     public void deleteByStudentId(UUID studentId) {
-        String sql = "DELETE FROM tasks WHERE student_id = ?";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_BY_STUDENT_ID_SQL)) {
 
-            stmt.setString(1, studentId.toString());
+            stmt.setObject(1, studentId);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -161,13 +349,11 @@ public class TaskRepository implements ITaskRepository {
     }
 
     public int countByStudentIdAndStatus(UUID studentId, TaskStatus status) {
-        String sql = "SELECT COUNT(*) FROM tasks WHERE student_id = ? AND status = ?";
-
         try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(COUNT_BY_STUDENT_ID_AND_STATUS_SQL)) {
 
-            stmt.setString(1, studentId.toString());
-            stmt.setString(2, status.name());
+            stmt.setString(1, status.name());
+            stmt.setObject(2, studentId);
 
             ResultSet rs = stmt.executeQuery();
             return rs.next() ? rs.getInt(1) : 0;
@@ -177,12 +363,48 @@ public class TaskRepository implements ITaskRepository {
         }
     }
 
+    public boolean existsById(UUID taskId) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_BY_ID_SQL)) {
+
+            stmt.setObject(1, taskId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check task existence", e);
+        }
+    }
+
     private Task mapTask(ResultSet rs) throws SQLException {
         return new Task(
-                UUID.fromString(rs.getString("id")),
-                UUID.fromString(rs.getString("student_id")),
+                rs.getObject("id", UUID.class),
+                rs.getObject("student_id", UUID.class),
                 rs.getInt("number"),
                 TaskStatus.valueOf(rs.getString("status"))
         );
     }
+
+    public Map<String, String> queries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("save", SAVE_SQL);
+        queries.put("findById", FIND_BY_ID_SQL);
+        queries.put("existsById", EXISTS_BY_ID_SQL);
+        queries.put("findByStudentId", FIND_BY_STUDENT_ID_SQL);
+        queries.put("findByGroupId", FIND_BY_GROUP_ID_SQL);
+        queries.put("findByStatus", FIND_BY_STATUS_SQL);
+        queries.put("findPageByStatus", FIND_PAGE_BY_STATUS_SQL);
+        queries.put("findPageByStatus.after", FIND_PAGE_BY_STATUS_AFTER_SQL);
+        queries.put("updateStatus", UPDATE_STATUS_SQL);
+        queries.put("updateStatusByStudentIdAndNumber", UPDATE_STATUS_BY_STUDENT_ID_AND_NUMBER_SQL);
+        queries.put("updateStatusBatch", UPDATE_STATUS_BATCH_SQL);
+        queries.put("updateStatusByGroupIdAndNumber", UPDATE_STATUS_BY_GROUP_ID_AND_NUMBER_SQL);
+        queries.put("delete", DELETE_SQL);
+        queries.put("findByStudentIdAndNumber", FIND_BY_STUDENT_ID_AND_NUMBER_SQL);
+        queries.put("deleteByStudentId", DELETE_BY_STUDENT_ID_SQL);
+        queries.put("countByStudentIdAndStatus", COUNT_BY_STUDENT_ID_AND_STATUS_SQL);
+        return queries;
+    }
 }
\ No newline at end of file
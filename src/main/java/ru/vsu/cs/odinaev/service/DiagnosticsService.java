@@ -0,0 +1,99 @@
+package ru.vsu.cs.odinaev.service;
+
+import ru.vsu.cs.odinaev.cache.CacheStats;
+import ru.vsu.cs.odinaev.cache.LruCache;
+import ru.vsu.cs.odinaev.database.DatabaseManager;
+import ru.vsu.cs.odinaev.metrics.PoolStats;
+import ru.vsu.cs.odinaev.metrics.QueryMetrics;
+import ru.vsu.cs.odinaev.metrics.QueryStats;
+import ru.vsu.cs.odinaev.repository.IQueryCatalog;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Диагностика работы с базой данных: планы выполнения запросов репозиториев, счетчики запросов,
+ * состояние пула соединений и счетчики кэшей.
+ * Для хранилищ в памяти (database.backend = memory или journal) dbManager = null и доступны только счетчики кэшей.
+ */
+public record DiagnosticsService(DatabaseManager dbManager, List<IQueryCatalog> catalogs,
+                                 List<LruCache<?, ?>> caches) implements IDiagnosticsService {
+
+    /**
+     * Строит планы выполнения всех запросов репозиториев.
+     *
+     * @param filter часть имени "Репозиторий.метод" для отбора запросов или null для всех
+     * @return планы по именам запросов в формате "Репозиторий.метод"
+     */
+    public Map<String, String> explainQueries(String filter) {
+        DatabaseManager database = database();
+        Map<String, String> plans = new LinkedHashMap<>();
+
+        for (IQueryCatalog catalog : catalogs) {
+            String repositoryName = catalog.getClass().getSimpleName();
+            catalog.queries().forEach((method, sql) -> {
+                String name = repositoryName + "." + method;
+                if (filter == null || name.toLowerCase().contains(filter.toLowerCase())) {
+                    plans.put(name, database.explain(sql));
+                }
+            });
+        }
+        return plans;
+    }
+
+    /**
+     * Возвращает счетчики всех кэшей репозиториев (пустой список, если кэш отключен).
+     */
+    public List<CacheStats> getCacheStats() {
+        return caches.stream().map(LruCache::stats).toList();
+    }
+
+    /**
+     * Возвращает счетчики выполненных запросов, самые затратные по суммарному времени — первыми.
+     *
+     * @return счетчики по именам "Репозиторий.метод"; запросы вне репозиториев — по тексту SQL
+     */
+    public Map<String, QueryStats> getQueryStats() {
+        Map<String, String> names = new HashMap<>();
+        for (IQueryCatalog catalog : catalogs) {
+            String repositoryName = catalog.getClass().getSimpleName();
+            catalog.queries().forEach((method, sql) -> names.putIfAbsent(sql, repositoryName + "." + method));
+        }
+
+        Map<String, QueryStats> stats = new LinkedHashMap<>();
+        queryMetrics().snapshot().stream()
+                .sorted(Comparator.comparingLong(QueryStats::totalNanos).reversed())
+                .forEach(query -> stats.put(names.getOrDefault(query.sql(), query.sql().replaceAll("\\s+", " ").trim()), query));
+        return stats;
+    }
+
+    public void resetQueryStats() {
+        queryMetrics().reset();
+    }
+
+    /**
+     * Возвращает состояние пула соединений; для хранилищ в памяти пула нет и результат пустой.
+     */
+    public Optional<PoolStats> getPoolStats() {
+        return Optional.ofNullable(dbManager).map(DatabaseManager::getPoolStats);
+    }
+
+    private QueryMetrics queryMetrics() {
+        QueryMetrics metrics = database().getQueryMetrics();
+        if (metrics == null) {
+            throw new IllegalStateException("Счетчики запросов отключены (database.metrics.enabled = false)");
+        }
+        return metrics;
+    }
+
+    private DatabaseManager database() {
+        if (dbManager == null) {
+            throw new IllegalStateException("SQL-диагностика недоступна для хранилищ в памяти (database.backend = memory или journal)");
+        }
+        return dbManager;
+    }
+}
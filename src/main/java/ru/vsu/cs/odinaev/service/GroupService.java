@@ -1,15 +1,21 @@
 package ru.vsu.cs.odinaev.service;
 
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.model.DeletionResult;
 import ru.vsu.cs.odinaev.model.Group;
-import ru.vsu.cs.odinaev.model.Student;
-import ru.vsu.cs.odinaev.model.Task;
-import ru.vsu.cs.odinaev.repository.GroupRepository;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
+import ru.vsu.cs.odinaev.repository.IGroupRepository;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
-public record GroupService(GroupRepository groupRepository, StudentService studentService) implements IGroupService {
+public record GroupService(IGroupRepository groupRepository, TaskService taskService,
+                           ITransactionManager transactionManager) implements IGroupService {
 
     public Group createGroup(String name, int courseNumber) {
         validateGroupName(name);
@@ -22,39 +28,73 @@ public record GroupService(GroupRepository groupRepository, StudentService stude
         return group;
     }
 
-    public void deleteGroup(UUID groupId) {
-        if (!groupExists(groupId)) {
-            throw new IllegalArgumentException("Группа с ID " + groupId + " не найдена");
-        }
-
-
-        List<Student> studentsInGroup = studentService.getStudentsByGroup(groupId);
-        for (Student student : studentsInGroup) {
-            studentService.deleteStudent(student.getId());
-        }
+    public DeletionResult deleteGroup(UUID groupId) {
+        return deleteGroups(List.of(groupId));
+    }
 
-        groupRepository.delete(groupId);
+    /**
+     * Удаление групп вместе со студентами и задачами одним каскадным оператором
+     */
+    public DeletionResult deleteGroups(Collection<UUID> groupIds) {
+        Set<UUID> uniqueIds = new LinkedHashSet<>(groupIds);
+
+        return transactionManager.execute(() -> {
+            DeletionResult result = groupRepository.deleteAll(uniqueIds);
+
+            // Если какой-то группы нет, откатываем удаление целиком
+            if (result.groups() != uniqueIds.size()) {
+                throw new IllegalArgumentException(uniqueIds.size() == 1
+                        ? "Группа с ID " + uniqueIds.iterator().next() + " не найдена"
+                        : "Найдено только " + result.groups() + " из " + uniqueIds.size() + " групп, удаление отменено");
+            }
+            uniqueIds.forEach(taskService::invalidateStatusIndex);
+            return result;
+        });
     }
 
     public List<Group> getAllGroups() {
         return groupRepository.findAll();
     }
 
+    /**
+     * Получение всех групп с количеством студентов и задач одним запросом
+     */
+    public List<GroupStatistics> getAllGroupsWithStatistics() {
+        return groupRepository.findAllWithStatistics();
+    }
+
+    /**
+     * Передача всех групп со статистикой в action по мере чтения, без сборки списка
+     */
+    public void forEachGroupWithStatistics(Consumer<GroupStatistics> action) {
+        groupRepository.streamAllWithStatistics(action);
+    }
+
+    /**
+     * Получение страницы групп со статистикой, следующих в порядке названия за группой afterId (null — первая страница)
+     */
+    public List<GroupStatistics> getGroupsWithStatisticsPage(UUID afterId, int limit) {
+        validatePageSize(limit);
+        return groupRepository.findPageWithStatistics(afterId, limit);
+    }
+
     public Group getGroupById(UUID groupId) {
         return groupRepository.findById(groupId).orElseThrow(() -> new IllegalArgumentException("Группа с ID " + groupId + " не найдена"));
     }
 
     public Group updateGroup(UUID groupId, String newName, Integer newCourseNumber) {
-        Group existingGroup = getGroupById(groupId);
+        return transactionManager.execute(() -> {
+            Group existingGroup = getGroupById(groupId);
 
-        validateGroupName(newName);
-        validateCourseNumber(newCourseNumber);
+            validateGroupName(newName);
+            validateCourseNumber(newCourseNumber);
 
-        existingGroup.setName(newName);
-        existingGroup.setCourseNumber(newCourseNumber);
+            existingGroup.setName(newName);
+            existingGroup.setCourseNumber(newCourseNumber);
 
-        groupRepository.update(existingGroup);
-        return existingGroup;
+            groupRepository.update(existingGroup);
+            return existingGroup;
+        });
     }
 
     public boolean groupExists(UUID groupId) {
@@ -70,28 +110,21 @@ public record GroupService(GroupRepository groupRepository, StudentService stude
         }
     }
 
+    private void validatePageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+    }
+
     private void validateCourseNumber(int courseNumber) {
         if (courseNumber < 1 || courseNumber > 6) {
             throw new IllegalArgumentException("Номер курса должен быть от 1 до 6");
         }
     }
 
-    public List<Object[]> getGroupReport(UUID groupId) {
-        if (!groupExists(groupId)) {
-            throw new IllegalArgumentException("Группа с ID " + groupId + " не найдена");
-        }
-
-        // Получаем студентов группы с использованием Params
-        List<Student> students = studentService.getStudentsByGroup(groupId);
-        List<Object[]> report = new ArrayList<>();
-
-        for (Student student : students) {
-            // Получаем задачи студента с использованием Params
-            List<Task> tasks = studentService.getStudentTasks(student.getId());
-            Object[] studentWithTasks = new Object[]{student, tasks};
-            report.add(studentWithTasks);
-        }
-
-        return report;
+    public GroupReport getGroupReport(UUID groupId) {
+        // Весь отчет строится одним JOIN-запросом вместо обхода студентов по одному
+        return groupRepository.findReport(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Группа с ID " + groupId + " не найдена"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ru.vsu.cs.odinaev.service;
+
+import ru.vsu.cs.odinaev.cache.CacheStats;
+import ru.vsu.cs.odinaev.metrics.PoolStats;
+import ru.vsu.cs.odinaev.metrics.QueryStats;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface IDiagnosticsService {
+    Map<String, String> explainQueries(String filter);
+    List<CacheStats> getCacheStats();
+    Map<String, QueryStats> getQueryStats();
+    void resetQueryStats();
+    Optional<PoolStats> getPoolStats();
+}
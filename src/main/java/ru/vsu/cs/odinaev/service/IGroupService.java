@@ -1,17 +1,25 @@
 package ru.vsu.cs.odinaev.service;
 
+import ru.vsu.cs.odinaev.model.DeletionResult;
 import ru.vsu.cs.odinaev.model.Group;
-import ru.vsu.cs.odinaev.repository.GroupRepository;
+import ru.vsu.cs.odinaev.model.GroupReport;
+import ru.vsu.cs.odinaev.model.GroupStatistics;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface IGroupService {
     Group createGroup(String name, int courseNumber);
-    void deleteGroup(UUID groupId);
+    DeletionResult deleteGroup(UUID groupId);
+    DeletionResult deleteGroups(Collection<UUID> groupIds);
     List<Group> getAllGroups();
+    List<GroupStatistics> getAllGroupsWithStatistics();
+    void forEachGroupWithStatistics(Consumer<GroupStatistics> action);
+    List<GroupStatistics> getGroupsWithStatisticsPage(UUID afterId, int limit);
     Group getGroupById(UUID groupId);
     Group updateGroup(UUID groupId, String newName, Integer newCourseNumber);
     boolean groupExists(UUID groupId);
-    List<Object[]> getGroupReport(UUID groupId);
+    GroupReport getGroupReport(UUID groupId);
 }
\ No newline at end of file
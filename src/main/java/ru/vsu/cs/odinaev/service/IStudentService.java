@@ -1,16 +1,26 @@
 package ru.vsu.cs.odinaev.service;
 
+import ru.vsu.cs.odinaev.model.ImportResult;
 import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
 import ru.vsu.cs.odinaev.model.Task;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface IStudentService {
     Student createStudent(String name, UUID groupId);
+    List<Student> createStudents(List<String> names, UUID groupId);
+    ImportResult importStudents(Path file, int batchSize);
     void deleteStudent(UUID studentId);
     List<Student> getAllStudents();
     List<Student> getStudentsByGroup(UUID groupId);
+    void forEachStudent(Consumer<Student> action);
+    List<Student> getStudentsPage(UUID afterId, int limit);
+    void forEachStudentProgress(UUID groupId, Consumer<StudentProgress> action);
+    List<StudentProgress> getStudentProgressPage(UUID groupId, UUID afterId, int limit);
     Student getStudentById(UUID studentId);
     Student updateStudent(UUID studentId, String newName, UUID newGroupId);
     List<Task> getStudentTasks(UUID studentId);
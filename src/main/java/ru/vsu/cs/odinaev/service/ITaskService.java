@@ -1,17 +1,37 @@
 package ru.vsu.cs.odinaev.service;
 
+import ru.vsu.cs.odinaev.model.BulkUpdateResult;
 import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskCompletion;
 import ru.vsu.cs.odinaev.model.TaskStatus;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
 
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface ITaskService {
     void initializeStudentTasks(UUID studentId);
+    void initializeStudentTasks(List<UUID> studentIds);
     void updateTaskStatus(UUID taskId, TaskStatus status);
+    TaskStatusChange updateTaskStatus(UUID studentId, int taskNumber, TaskStatus status);
+    BulkUpdateResult updateTaskStatuses(List<TaskStatusUpdate> updates);
+    BulkUpdateResult updateGroupTaskStatus(UUID groupId, int taskNumber, TaskStatus status);
+    List<TaskStatusUpdate> readStatusUpdates(Path file);
+    TaskStatusUpdate parseStatusUpdate(String value);
+    TaskStatus parseStatus(String value);
     void getTaskById(UUID taskId);
     List<Task> getTasksByStudent(UUID studentId);
+    void forEachTaskByStatus(TaskStatus status, Consumer<Task> action);
+    List<Task> getTasksByStatusPage(TaskStatus status, UUID afterId, int limit);
     int getCompletedTasksCount(UUID studentId);
     Task getTaskByStudentAndNumber(UUID studentId, int taskNumber);
     void deleteStudentTasks(UUID studentId);
+    TaskCompletion getTaskCompletion(Collection<UUID> groupIds);
+    List<UUID> getStudentsMissingTask(UUID groupId, int taskNumber);
+    List<UUID> getStudentsWithAllTasks(UUID groupId);
+    void invalidateStatusIndex(UUID groupId);
 }
\ No newline at end of file
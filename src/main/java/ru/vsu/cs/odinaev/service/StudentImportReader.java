@@ -0,0 +1,175 @@
+package ru.vsu.cs.odinaev.service;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Потоковое чтение файла импорта студентов.
+ * Поддерживает CSV (строки "имя,группа", заголовок необязателен) и JSON
+ * (массив объектов {"name": ..., "group": ...}). Группа задается UUID или названием.
+ * Файл читается по одной записи, целиком в память не загружается.
+ */
+abstract class StudentImportReader implements Iterator<StudentImportReader.Row>, Closeable {
+
+    /**
+     * Запись файла импорта.
+     *
+     * @param line  номер строки CSV или номер записи JSON, начиная с 1
+     * @param name  имя студента
+     * @param group UUID или название группы
+     */
+    record Row(long line, String name, String group) {
+    }
+
+    private Row next;
+
+    static StudentImportReader open(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        if (file.getFileName().toString().toLowerCase().endsWith(".json")) {
+            return new JsonImportReader(reader);
+        }
+        return new CsvImportReader(reader);
+    }
+
+    /**
+     * Читает следующую запись или возвращает null в конце файла.
+     */
+    protected abstract Row readRow() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка чтения файла импорта", e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = next;
+        next = null;
+        return row;
+    }
+
+    private static final class CsvImportReader extends StudentImportReader {
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        private CsvImportReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        protected Row readRow() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                List<String> fields = splitCsv(line);
+                if (lineNumber == 1 && fields.size() == 2
+                        && fields.get(0).trim().equalsIgnoreCase("name")
+                        && fields.get(1).trim().equalsIgnoreCase("group")) {
+                    continue;
+                }
+
+                String name = fields.size() > 0 ? fields.get(0) : null;
+                String group = fields.size() > 1 ? fields.get(1).trim() : null;
+                return new Row(lineNumber, name, group);
+            }
+            return null;
+        }
+
+        private List<String> splitCsv(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean inQuotes = false;
+
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        inQuotes = !inQuotes;
+                    }
+                } else if ((c == ',' || c == ';') && !inQuotes) {
+                    fields.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class JsonImportReader extends StudentImportReader {
+        private final JsonReader reader;
+        private long recordNumber;
+
+        private JsonImportReader(BufferedReader reader) throws IOException {
+            this.reader = new JsonReader(reader);
+            this.reader.beginArray();
+        }
+
+        @Override
+        protected Row readRow() throws IOException {
+            if (!reader.hasNext()) {
+                return null;
+            }
+            recordNumber++;
+
+            String name = null;
+            String group = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                } else if (field.equals("name")) {
+                    name = reader.nextString();
+                } else if (field.equals("group") || field.equals("groupId")) {
+                    group = reader.nextString().trim();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new Row(recordNumber, name, group);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
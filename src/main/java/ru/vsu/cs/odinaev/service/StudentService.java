@@ -1,14 +1,27 @@
 package ru.vsu.cs.odinaev.service;
 
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.ImportResult;
 import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.StudentProgress;
 import ru.vsu.cs.odinaev.model.Task;
-import ru.vsu.cs.odinaev.repository.StudentRepository;
+import ru.vsu.cs.odinaev.repository.IStudentRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
-public record StudentService(StudentRepository studentRepository, GroupService groupService,
-                             TaskService taskService) implements IStudentService {
+public record StudentService(IStudentRepository studentRepository, GroupService groupService,
+                             TaskService taskService, ITransactionManager transactionManager) implements IStudentService {
 
     public Student createStudent(String name, UUID groupId) {
         validateStudentName(name);
@@ -20,18 +33,132 @@ public record StudentService(StudentRepository studentRepository, GroupService g
         UUID studentId = UUID.randomUUID();
         Student student = new Student(studentId, name.trim(), groupId);
 
-        studentRepository.save(student);
-        taskService.initializeStudentTasks(studentId);
+        // Студент и его задачи создаются атомарно, одной фиксацией
+        return transactionManager.execute(() -> {
+            studentRepository.save(student);
+            taskService.initializeStudentTasks(studentId);
+            taskService.invalidateStatusIndex(groupId);
+            return student;
+        });
+    }
 
-        return student;
+    /**
+     * Создать нескольких студентов одной группы одним пакетом в одной транзакции
+     */
+    public List<Student> createStudents(List<String> names, UUID groupId) {
+        names.forEach(this::validateStudentName);
+
+        if (!groupService.groupExists(groupId)) {
+            throw new IllegalArgumentException("Группа с ID " + groupId + " не найдена");
+        }
+
+        List<Student> students = new ArrayList<>(names.size());
+        for (String name : names) {
+            students.add(new Student(UUID.randomUUID(), name.trim(), groupId));
+        }
+        saveBatch(students);
+        return students;
     }
 
-    public void deleteStudent(UUID studentId) {
-        if (!studentRepository.existsById(studentId)) {
-            throw new IllegalArgumentException("Студент с ID " + studentId + " не найден");
+    /**
+     * Массовый импорт студентов из CSV/JSON файла. Строки проверяются по одной,
+     * принятые студенты и их задачи вставляются пакетами по batchSize записей,
+     * каждый пакет — в своей транзакции.
+     */
+    public ImportResult importStudents(Path file, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным");
+        }
+
+        long startedAt = System.nanoTime();
+
+        // Группы загружаются один раз, чтобы не проверять группу запросом на каждую строку
+        Set<UUID> groupIds = new HashSet<>();
+        Map<String, UUID> groupIdsByName = new HashMap<>();
+        Set<String> ambiguousNames = new HashSet<>();
+        for (Group group : groupService.getAllGroups()) {
+            groupIds.add(group.getId());
+            if (groupIdsByName.putIfAbsent(group.getName(), group.getId()) != null) {
+                ambiguousNames.add(group.getName());
+            }
+        }
+
+        List<ImportResult.RejectedRow> rejected = new ArrayList<>();
+        List<Student> batch = new ArrayList<>(batchSize);
+        int imported = 0;
+
+        try (StudentImportReader reader = StudentImportReader.open(file)) {
+            while (reader.hasNext()) {
+                StudentImportReader.Row row = reader.next();
+
+                try {
+                    validateStudentName(row.name());
+                } catch (IllegalArgumentException e) {
+                    rejected.add(new ImportResult.RejectedRow(row.line(), e.getMessage()));
+                    continue;
+                }
+
+                String groupKey = row.group() == null ? "" : row.group();
+                if (ambiguousNames.contains(groupKey)) {
+                    rejected.add(new ImportResult.RejectedRow(row.line(), "Несколько групп с названием '" + groupKey + "', укажите UUID"));
+                    continue;
+                }
+                UUID groupId = resolveGroupId(groupKey, groupIds, groupIdsByName);
+                if (groupId == null) {
+                    rejected.add(new ImportResult.RejectedRow(row.line(), "Группа '" + groupKey + "' не найдена"));
+                    continue;
+                }
+
+                batch.add(new Student(UUID.randomUUID(), row.name().trim(), groupId));
+                if (batch.size() == batchSize) {
+                    imported += saveBatch(batch);
+                    batch.clear();
+                }
+            }
+
+            imported += saveBatch(batch);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать файл " + file, e);
+        }
+
+        return new ImportResult(imported, rejected, System.nanoTime() - startedAt);
+    }
+
+    private UUID resolveGroupId(String groupKey, Set<UUID> groupIds, Map<String, UUID> groupIdsByName) {
+        try {
+            UUID groupId = UUID.fromString(groupKey);
+            if (groupIds.contains(groupId)) {
+                return groupId;
+            }
+        } catch (IllegalArgumentException e) {
+            // не UUID — ищем по названию
+        }
+        return groupIdsByName.get(groupKey);
+    }
+
+    private int saveBatch(List<Student> batch) {
+        if (batch.isEmpty()) {
+            return 0;
         }
-        taskService.deleteStudentTasks(studentId);
-        studentRepository.delete(studentId);
+
+        List<UUID> studentIds = batch.stream().map(Student::getId).toList();
+        transactionManager.run(() -> {
+            studentRepository.saveAll(batch);
+            taskService.initializeStudentTasks(studentIds);
+            batch.stream().map(Student::getGroupId).distinct().forEach(taskService::invalidateStatusIndex);
+        });
+        return batch.size();
+    }
+
+    public void deleteStudent(UUID studentId) {
+        transactionManager.run(() -> {
+            if (!studentRepository.existsById(studentId)) {
+                throw new IllegalArgumentException("Студент с ID " + studentId + " не найден");
+            }
+            taskService.deleteStudentTasks(studentId);
+            studentRepository.delete(studentId);
+        });
     }
 
     public List<Student> getAllStudents() {
@@ -45,26 +172,68 @@ public record StudentService(StudentRepository studentRepository, GroupService g
         return studentRepository.findByGroupId(groupId);
     }
 
+    /**
+     * Передача всех студентов в action по мере чтения, без сборки списка
+     */
+    public void forEachStudent(Consumer<Student> action) {
+        studentRepository.streamAll(action);
+    }
+
+    /**
+     * Получение страницы студентов, следующих в порядке имени за студентом afterId (null — первая страница)
+     */
+    public List<Student> getStudentsPage(UUID afterId, int limit) {
+        validatePageSize(limit);
+        return studentRepository.findAllPage(afterId, limit);
+    }
+
+    /**
+     * Передача студентов группы с прогрессом по задачам в action по мере чтения, без сборки списка
+     */
+    public void forEachStudentProgress(UUID groupId, Consumer<StudentProgress> action) {
+        if (!groupService.groupExists(groupId)) {
+            throw new IllegalArgumentException("Группа с ID " + groupId + " не найдена");
+        }
+        studentRepository.streamProgressByGroupId(groupId, action);
+    }
+
+    /**
+     * Получение страницы студентов группы с прогрессом, следующих в порядке имени за студентом afterId
+     */
+    public List<StudentProgress> getStudentProgressPage(UUID groupId, UUID afterId, int limit) {
+        validatePageSize(limit);
+        if (!groupService.groupExists(groupId)) {
+            throw new IllegalArgumentException("Группа с ID " + groupId + " не найдена");
+        }
+        return studentRepository.findProgressPageByGroupId(groupId, afterId, limit);
+    }
+
     public Student getStudentById(UUID studentId) {
         return studentRepository.findById(studentId)
                 .orElseThrow(() -> new IllegalArgumentException("Студент с ID " + studentId + " не найден"));
     }
 
     public Student updateStudent(UUID studentId, String newName, UUID newGroupId) {
-        Student existingStudent = getStudentById(studentId);
+        return transactionManager.execute(() -> {
+            Student existingStudent = getStudentById(studentId);
 
-        validateStudentName(newName);
-        existingStudent.setName(newName.trim());
+            validateStudentName(newName);
+            existingStudent.setName(newName.trim());
 
-        if (newGroupId != null) {
-            if (!groupService.groupExists(newGroupId)) {
-                throw new IllegalArgumentException("Группа с ID " + newGroupId + " не найдена");
+            if (newGroupId != null) {
+                if (!groupService.groupExists(newGroupId)) {
+                    throw new IllegalArgumentException("Группа с ID " + newGroupId + " не найдена");
+                }
+                if (!newGroupId.equals(existingStudent.getGroupId())) {
+                    taskService.invalidateStatusIndex(existingStudent.getGroupId());
+                    taskService.invalidateStatusIndex(newGroupId);
+                }
+                existingStudent.setGroupId(newGroupId);
             }
-            existingStudent.setGroupId(newGroupId);
-        }
 
-        studentRepository.update(existingStudent);
-        return existingStudent;
+            studentRepository.update(existingStudent);
+            return existingStudent;
+        });
     }
 
     public List<Task> getStudentTasks(UUID studentId) {
@@ -75,6 +244,12 @@ public record StudentService(StudentRepository studentRepository, GroupService g
         return taskService.getTasksByStudent(studentId);
     }
 
+    private void validatePageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+    }
+
     private void validateStudentName(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Имя студента не может быть пустым");
@@ -84,9 +259,9 @@ public record StudentService(StudentRepository studentRepository, GroupService g
         }
     }
     /**
-     * Получение количества студентов в группе (использует Repository.find())
+     * Получение количества студентов в группе (использует Repository.count())
      */
     public int getStudentsCountByGroup(UUID groupId) {
-        return studentRepository.findByGroupId(groupId).size();
+        return studentRepository.countByGroupId(groupId);
     }
 }
\ No newline at end of file
@@ -1,38 +1,200 @@
 package ru.vsu.cs.odinaev.service;
 
+import ru.vsu.cs.odinaev.cache.TaskStatusIndex;
+import ru.vsu.cs.odinaev.database.ITransactionManager;
+import ru.vsu.cs.odinaev.model.BulkUpdateResult;
 import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskCompletion;
 import ru.vsu.cs.odinaev.model.TaskStatus;
-import ru.vsu.cs.odinaev.repository.TaskRepository;
+import ru.vsu.cs.odinaev.model.TaskStatusChange;
+import ru.vsu.cs.odinaev.model.TaskStatusUpdate;
+import ru.vsu.cs.odinaev.repository.ITaskRepository;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.function.Consumer;
 
-public record TaskService(TaskRepository taskRepository) implements ITaskService {
+public record TaskService(ITaskRepository taskRepository, ITransactionManager transactionManager,
+                          TaskStatusIndex statusIndex) implements ITaskService {
 
     private static final int REQUIRED_TASKS_COUNT = 3;
 
+    /**
+     * Сервис с индексом статусов, загружающим группы из того же репозитория
+     */
+    public TaskService(ITaskRepository taskRepository, ITransactionManager transactionManager) {
+        this(taskRepository, transactionManager, new TaskStatusIndex(REQUIRED_TASKS_COUNT, taskRepository::findByGroupId));
+    }
+
     public void initializeStudentTasks(UUID studentId) {
-        for (int i = 1; i <= REQUIRED_TASKS_COUNT; i++) {
-            UUID taskId = UUID.randomUUID();
-            Task task = new Task(taskId, studentId, i, TaskStatus.NOT_SUBMITTED);
-            taskRepository.save(task);
+        initializeStudentTasks(List.of(studentId));
+    }
+
+    /**
+     * Создать обязательные задачи сразу для нескольких студентов одним пакетом
+     */
+    public void initializeStudentTasks(List<UUID> studentIds) {
+        List<Task> tasks = new ArrayList<>(studentIds.size() * REQUIRED_TASKS_COUNT);
+        for (UUID studentId : studentIds) {
+            for (int i = 1; i <= REQUIRED_TASKS_COUNT; i++) {
+                UUID taskId = UUID.randomUUID();
+                tasks.add(new Task(taskId, studentId, i, TaskStatus.NOT_SUBMITTED));
+            }
         }
+        taskRepository.saveAll(tasks);
     }
 
     public void updateTaskStatus(UUID taskId, TaskStatus status) {
-        getTaskById(taskId);
-        taskRepository.updateStatus(taskId, status);
+        transactionManager.run(() -> {
+            Task task = taskRepository.findById(taskId)
+                    .orElseThrow(() -> new IllegalArgumentException("Задача с ID " + taskId + " не найдена"));
+            taskRepository.updateStatus(taskId, status);
+            transactionManager.afterCommit(() -> statusIndex.setStatus(task.getStudentId(), task.getNumber(), status));
+        });
+    }
+
+    /**
+     * Изменить статус задачи студента по ее номеру одним запросом к базе
+     */
+    public TaskStatusChange updateTaskStatus(UUID studentId, int taskNumber, TaskStatus status) {
+        TaskStatusChange change = taskRepository.updateStatusByStudentIdAndNumber(studentId, taskNumber, status)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Задача №" + taskNumber + " для студента " + studentId + " не найдена"));
+        transactionManager.afterCommit(() -> statusIndex.setStatus(studentId, taskNumber, status));
+        return change;
+    }
+
+    /**
+     * Изменить статусы набора задач одним пакетом в одной транзакции
+     */
+    public BulkUpdateResult updateTaskStatuses(List<TaskStatusUpdate> updates) {
+        for (TaskStatusUpdate update : updates) {
+            validateTaskNumber(update.taskNumber());
+        }
+
+        long start = System.nanoTime();
+        int updated = transactionManager.execute(() -> {
+            transactionManager.afterCommit(() -> statusIndex.setStatuses(updates));
+            return taskRepository.updateStatusBatch(updates);
+        });
+        return new BulkUpdateResult(updates.size(), updated, System.nanoTime() - start);
+    }
+
+    /**
+     * Изменить статус задачи с указанным номером у всех студентов группы одним запросом
+     */
+    public BulkUpdateResult updateGroupTaskStatus(UUID groupId, int taskNumber, TaskStatus status) {
+        validateTaskNumber(taskNumber);
+
+        long start = System.nanoTime();
+        int updated = transactionManager.execute(() -> {
+            transactionManager.afterCommit(() -> statusIndex.setGroupStatus(groupId, taskNumber, status));
+            return taskRepository.updateStatusByGroupIdAndNumber(groupId, taskNumber, status);
+        });
+        return new BulkUpdateResult(updated, updated, System.nanoTime() - start);
+    }
+
+    /**
+     * Прочитать изменения статусов из файла: по одному "studentId,номер[,статус]" в строке.
+     * Пустые строки и строки, начинающиеся с #, пропускаются
+     */
+    public List<TaskStatusUpdate> readStatusUpdates(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Не удалось прочитать файл: " + file, e);
+        }
+
+        List<TaskStatusUpdate> updates = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                updates.add(parseStatusUpdate(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("строка " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Разобрать изменение статуса вида "studentId:номер[:статус]" (допустимы разделители : , ;).
+     * Без статуса задача отмечается как сданная
+     */
+    public TaskStatusUpdate parseStatusUpdate(String value) {
+        String[] parts = value.trim().split("\\s*[:,;]\\s*");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Ожидается studentId:номер[:статус], получено: " + value);
+        }
+
+        UUID studentId;
+        int taskNumber;
+        try {
+            studentId = UUID.fromString(parts[0]);
+            taskNumber = Integer.parseInt(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный UUID студента или номер задачи: " + value);
+        }
+
+        TaskStatus status = parts.length == 3 ? parseStatus(parts[2]) : TaskStatus.SUBMITTED;
+        return new TaskStatusUpdate(studentId, taskNumber, status);
+    }
+
+    /**
+     * Разобрать статус задачи: SUBMITTED / NOT_SUBMITTED без учета регистра
+     */
+    public TaskStatus parseStatus(String value) {
+        try {
+            return TaskStatus.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный статус задачи: " + value + " (ожидается SUBMITTED или NOT_SUBMITTED)");
+        }
+    }
+
+    private void validateTaskNumber(int taskNumber) {
+        if (taskNumber < 1 || taskNumber > REQUIRED_TASKS_COUNT) {
+            throw new IllegalArgumentException("Номер задачи должен быть от 1 до " + REQUIRED_TASKS_COUNT);
+        }
     }
 
     public void getTaskById(UUID taskId) {
-        taskRepository.findById(taskId)
-                .orElseThrow(() -> new IllegalArgumentException("Задача с ID " + taskId + " не найдена"));
+        if (!taskRepository.existsById(taskId)) {
+            throw new IllegalArgumentException("Задача с ID " + taskId + " не найдена");
+        }
     }
 
     public List<Task> getTasksByStudent(UUID studentId) {
         return taskRepository.findByStudentId(studentId);
     }
 
+    /**
+     * Передать задачи с указанным статусом в action по мере чтения, без сборки списка
+     */
+    public void forEachTaskByStatus(TaskStatus status, Consumer<Task> action) {
+        taskRepository.streamByStatus(status, action);
+    }
+
+    /**
+     * Получить страницу задач с указанным статусом, следующих в порядке номера за задачей afterId (null — первая страница)
+     */
+    public List<Task> getTasksByStatusPage(TaskStatus status, UUID afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        return taskRepository.findPageByStatus(status, afterId, limit);
+    }
+
     public int getCompletedTasksCount(UUID studentId) {
         return taskRepository.countByStudentIdAndStatus(studentId, TaskStatus.SUBMITTED);
     }
@@ -51,5 +213,35 @@ public record TaskService(TaskRepository taskRepository) implements ITaskService
      */
     public void deleteStudentTasks(UUID studentId) {
         taskRepository.deleteByStudentId(studentId);
+        transactionManager.afterCommit(() -> statusIndex.removeStudent(studentId));
+    }
+
+    /**
+     * Получить сдачу задач по группам (по одной группе или, например, по всем группам курса) из индекса статусов
+     */
+    public TaskCompletion getTaskCompletion(Collection<UUID> groupIds) {
+        return statusIndex.completion(groupIds);
+    }
+
+    /**
+     * Получить студентов группы, не сдавших задачу с указанным номером, из индекса статусов
+     */
+    public List<UUID> getStudentsMissingTask(UUID groupId, int taskNumber) {
+        validateTaskNumber(taskNumber);
+        return statusIndex.missing(groupId, taskNumber);
+    }
+
+    /**
+     * Получить студентов группы, сдавших все задачи, из индекса статусов
+     */
+    public List<UUID> getStudentsWithAllTasks(UUID groupId) {
+        return statusIndex.completedAll(groupId);
+    }
+
+    /**
+     * Сбросить группу в индексе статусов после изменения ее состава (после фиксации текущей транзакции)
+     */
+    public void invalidateStatusIndex(UUID groupId) {
+        transactionManager.afterCommit(() -> statusIndex.invalidate(groupId));
     }
 }
\ No newline at end of file
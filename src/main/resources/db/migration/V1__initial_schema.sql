@@ -0,0 +1,31 @@
+-- Исходная схема MiniBRS. IF NOT EXISTS позволяет применить миграцию
+-- к базам, созданным до появления schema_version.
+
+-- Таблица групп
+CREATE TABLE IF NOT EXISTS groups (
+    id UUID PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    course_number INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Таблица студентов
+CREATE TABLE IF NOT EXISTS students (
+    id UUID PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    group_id UUID NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (group_id) REFERENCES groups(id) ON DELETE CASCADE
+);
+
+-- Таблица задач
+CREATE TABLE IF NOT EXISTS tasks (
+    id UUID PRIMARY KEY,
+    student_id UUID NOT NULL,
+    number INT NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('SUBMITTED', 'NOT_SUBMITTED')),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE,
+    UNIQUE (student_id, number)
+);
@@ -0,0 +1,11 @@
+-- Индексы для самых частых запросов репозиториев.
+
+-- StudentRepository.findByGroupId: WHERE group_id = ? ORDER BY name
+CREATE INDEX IF NOT EXISTS idx_students_group_name ON students (group_id, name);
+
+-- TaskRepository.findByStatus: WHERE status = ? ORDER BY number
+CREATE INDEX IF NOT EXISTS idx_tasks_status_number ON tasks (status, number);
+
+-- TaskRepository.countByStudentIdAndStatus и подсчет сданных задач в отчетах:
+-- покрывающий индекс, COUNT(*) не обращается к строкам таблицы
+CREATE INDEX IF NOT EXISTS idx_tasks_student_status ON tasks (student_id, status);
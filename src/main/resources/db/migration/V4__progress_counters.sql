@@ -0,0 +1,27 @@
+-- Материализованные счетчики прогресса: задачи и сданные задачи студента, студенты и задачи группы.
+-- Их поддерживает триггер ProgressTrigger в той же транзакции, что и изменение задач и студентов,
+-- поэтому отчеты и списки читают готовые числа вместо агрегации таблицы tasks.
+
+ALTER TABLE students ADD COLUMN IF NOT EXISTS total_tasks INT DEFAULT 0 NOT NULL;
+ALTER TABLE students ADD COLUMN IF NOT EXISTS submitted_tasks INT DEFAULT 0 NOT NULL;
+
+ALTER TABLE groups ADD COLUMN IF NOT EXISTS students_count INT DEFAULT 0 NOT NULL;
+ALTER TABLE groups ADD COLUMN IF NOT EXISTS total_tasks INT DEFAULT 0 NOT NULL;
+ALTER TABLE groups ADD COLUMN IF NOT EXISTS submitted_tasks INT DEFAULT 0 NOT NULL;
+
+-- Начальные значения по существующим строкам (до создания триггеров, чтобы не учесть их дважды)
+UPDATE students s SET
+    total_tasks = (SELECT COUNT(*) FROM tasks t WHERE t.student_id = s.id),
+    submitted_tasks = (SELECT COUNT(*) FROM tasks t WHERE t.student_id = s.id AND t.status = 'SUBMITTED');
+
+UPDATE groups g SET
+    students_count = (SELECT COUNT(*) FROM students s WHERE s.group_id = g.id),
+    total_tasks = (SELECT COALESCE(SUM(s.total_tasks), 0) FROM students s WHERE s.group_id = g.id),
+    submitted_tasks = (SELECT COALESCE(SUM(s.submitted_tasks), 0) FROM students s WHERE s.group_id = g.id);
+
+-- Задачи меняют счетчики студента, студенты переносят свои счетчики в группу
+CREATE TRIGGER IF NOT EXISTS trg_tasks_progress AFTER INSERT, UPDATE, DELETE ON tasks
+    FOR EACH ROW CALL 'ru.vsu.cs.odinaev.database.ProgressTrigger';
+
+CREATE TRIGGER IF NOT EXISTS trg_students_progress AFTER INSERT, UPDATE, DELETE ON students
+    FOR EACH ROW CALL 'ru.vsu.cs.odinaev.database.ProgressTrigger';
@@ -0,0 +1,18 @@
+-- Индексы для постраничных выборок по ключу (keyset): страница продолжается после строки (name, id)
+-- или (number, id), поэтому индекс отдает ее упорядоченной без сортировки и без пропуска предыдущих страниц.
+-- id в конце индекса делает порядок полным при совпадающих именах.
+
+-- GroupRepository.findPageWithStatistics: WHERE (name, id) > (?, ?) ORDER BY name, id
+CREATE INDEX IF NOT EXISTS idx_groups_name_id ON groups (name, id);
+
+-- StudentRepository.findAllPage: WHERE (name, id) > (?, ?) ORDER BY name, id
+CREATE INDEX IF NOT EXISTS idx_students_name_id ON students (name, id);
+
+-- StudentRepository.findByGroupId и findProgressPageByGroupId: WHERE group_id = ? ORDER BY group_id, name, id;
+-- заменяет индекс (group_id, name) из V3, который является его префиксом
+CREATE INDEX IF NOT EXISTS idx_students_group_name_id ON students (group_id, name, id);
+DROP INDEX IF EXISTS idx_students_group_name;
+
+-- TaskRepository.findByStatus и findPageByStatus: WHERE status = ? ORDER BY status, number, id
+CREATE INDEX IF NOT EXISTS idx_tasks_status_number_id ON tasks (status, number, id);
+DROP INDEX IF EXISTS idx_tasks_status_number;
@@ -0,0 +1,48 @@
+package ru.vsu.cs.odinaev.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Кэширование групп битового индекса статусов: в индексе остаются только группы, у которых есть задачи.
+ */
+class TaskStatusIndexTest {
+    private final Map<UUID, List<Task>> tasksByGroup = new HashMap<>();
+    private final TaskStatusIndex index = new TaskStatusIndex(2, groupId -> tasksByGroup.getOrDefault(groupId, List.of()));
+
+    @Test
+    void doesNotCacheMissingGroups() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(List.of(), index.missing(UUID.randomUUID(), 1));
+        }
+
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void cachesGroupOnceItHasTasks() {
+        UUID groupId = UUID.randomUUID();
+        UUID studentId = UUID.randomUUID();
+
+        assertEquals(List.of(), index.completedAll(groupId));
+        assertEquals(0, index.size());
+
+        tasksByGroup.put(groupId, List.of(
+                new Task(UUID.randomUUID(), studentId, 1, TaskStatus.SUBMITTED),
+                new Task(UUID.randomUUID(), studentId, 2, TaskStatus.NOT_SUBMITTED)));
+
+        assertEquals(List.of(studentId), index.missing(groupId, 2));
+        assertEquals(1, index.size());
+
+        index.setStatus(studentId, 2, TaskStatus.SUBMITTED);
+        assertEquals(List.of(studentId), index.completedAll(groupId));
+    }
+}
@@ -0,0 +1,342 @@
+package ru.vsu.cs.odinaev.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.Student;
+import ru.vsu.cs.odinaev.model.Task;
+import ru.vsu.cs.odinaev.model.TaskStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Восстановление хранилища из снимка и журнала. Сбой моделируется закрытием журнала без снимка
+ * и порчей байтов файла journal.log между запусками.
+ */
+class JournalRecoveryTest {
+    private static final int HEADER_SIZE = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysJournalWithoutSnapshot() {
+        Group first = group("ПИ-1");
+        Group second = group("ПИ-2");
+
+        run(store -> {
+            put(store, first);
+            put(store, second);
+            store.write(() -> store.putGroup(new Group(first.getId(), "ПИ-3", 3)));
+        });
+
+        assertTrue(Files.notExists(dir.resolve("snapshot.bin")));
+        InMemoryStore recovered = recover();
+        assertEquals(List.of("ПИ-2", "ПИ-3"), names(recovered));
+        assertEquals(3, recovered.read(() -> recovered.findGroup(first.getId())).orElseThrow().getCourseNumber());
+    }
+
+    @Test
+    void replaysJournalAfterSnapshot() {
+        Group beforeSnapshot = group("ПИ-1");
+        Group removed = group("ПИ-2");
+        Group afterSnapshot = group("ПИ-3");
+
+        run(store -> {
+            put(store, beforeSnapshot);
+            put(store, removed);
+            store.checkpoint();
+            store.write(() -> store.removeGroup(removed.getId()));
+            put(store, afterSnapshot);
+        });
+
+        assertTrue(Files.exists(dir.resolve("snapshot.bin")));
+        assertEquals(List.of("ПИ-1", "ПИ-3"), names(recover()));
+    }
+
+    @Test
+    void dropsTornLastEntry() throws IOException {
+        run(store -> {
+            put(store, group("ПИ-1"));
+            put(store, group("ПИ-2"));
+        });
+
+        // Длина пишется последней: оборванная запись выглядит как конец журнала
+        List<Integer> entries = entryOffsets();
+        writeInt(entries.get(1), 0);
+
+        assertEquals(List.of("ПИ-1"), names(recover()));
+    }
+
+    @Test
+    void dropsLastEntryWithBadChecksum() throws IOException {
+        run(store -> {
+            put(store, group("ПИ-1"));
+            put(store, group("ПИ-2"));
+        });
+
+        List<Integer> entries = entryOffsets();
+        int last = entries.get(1);
+        writeInt(last + 4, readInt(last + 4) ^ 1);
+
+        assertEquals(List.of("ПИ-1"), names(recover()));
+    }
+
+    @Test
+    void dropsLastEntryWithOverflowingLength() throws IOException {
+        run(store -> {
+            put(store, group("ПИ-1"));
+            put(store, group("ПИ-2"));
+        });
+
+        // Смещение записи плюс такая длина не помещается в int
+        List<Integer> entries = entryOffsets();
+        writeInt(entries.get(1), Integer.MAX_VALUE - 8);
+
+        assertEquals(List.of("ПИ-1"), names(recover()));
+    }
+
+    @Test
+    void dropsTornCascadeDeleteAsWhole() throws IOException {
+        Group removed = group("ПИ-1");
+        Student student = new Student(UUID.randomUUID(), "Иван", removed.getId());
+        Task task = new Task(UUID.randomUUID(), student.getId(), 1, TaskStatus.SUBMITTED);
+
+        run(store -> {
+            store.write(() -> {
+                store.putGroup(removed);
+                store.putStudent(student);
+                store.putTask(task);
+                store.putTask(new Task(UUID.randomUUID(), student.getId(), 2, TaskStatus.NOT_SUBMITTED));
+            });
+            put(store, group("ПИ-2"));
+            // Каскадное удаление группы → студента → задач фиксируется одной записью журнала
+            store.write(() -> store.removeGroup(removed.getId()));
+        });
+
+        List<Integer> entries = entryOffsets();
+        writeInt(entries.get(2), 0);
+
+        InMemoryStore recovered = recover();
+        recovered.read(() -> {
+            assertEquals(List.of(removed.getName(), "ПИ-2"), names(recovered));
+            assertTrue(recovered.findStudent(student.getId()).isPresent());
+            assertEquals(TaskStatus.SUBMITTED, recovered.findTask(task.getId()).orElseThrow().getStatus());
+            assertEquals(1, recovered.countStudentsOfGroup(removed.getId()));
+            assertEquals(2, recovered.countTasksOfGroup(removed.getId()));
+            assertEquals(1, recovered.countTasksOfGroup(removed.getId(), TaskStatus.SUBMITTED));
+            return null;
+        });
+    }
+
+    @Test
+    void replaysCascadeDelete() {
+        Group removed = group("ПИ-1");
+        Student student = new Student(UUID.randomUUID(), "Иван", removed.getId());
+        Task task = new Task(UUID.randomUUID(), student.getId(), 1, TaskStatus.SUBMITTED);
+
+        run(store -> {
+            store.write(() -> {
+                store.putGroup(removed);
+                store.putStudent(student);
+                store.putTask(task);
+            });
+            put(store, group("ПИ-2"));
+            store.write(() -> store.removeGroup(removed.getId()));
+        });
+
+        InMemoryStore recovered = recover();
+        recovered.read(() -> {
+            assertEquals(List.of("ПИ-2"), names(recovered));
+            assertFalse(recovered.findStudent(student.getId()).isPresent());
+            assertFalse(recovered.findTask(task.getId()).isPresent());
+            assertEquals(0, recovered.countStudentsOfGroup(removed.getId()));
+            assertEquals(0, recovered.countTasksOfGroup(removed.getId()));
+            return null;
+        });
+    }
+
+    @Test
+    void restoresProgressCountersAndTaskStatus() {
+        Group group = group("ПИ-1");
+        Student first = new Student(UUID.randomUUID(), "Иван", group.getId());
+        Student second = new Student(UUID.randomUUID(), "Петр", group.getId());
+        Task submitted = new Task(UUID.randomUUID(), first.getId(), 1, TaskStatus.NOT_SUBMITTED);
+        Task reset = new Task(UUID.randomUUID(), first.getId(), 2, TaskStatus.SUBMITTED);
+        Task removed = new Task(UUID.randomUUID(), second.getId(), 1, TaskStatus.SUBMITTED);
+
+        run(store -> {
+            store.write(() -> {
+                store.putGroup(group);
+                store.putStudent(first);
+                store.putStudent(second);
+                store.putTask(submitted);
+                store.putTask(reset);
+                store.putTask(removed);
+                store.putTask(new Task(UUID.randomUUID(), second.getId(), 2, TaskStatus.NOT_SUBMITTED));
+            });
+            // Часть изменений попадает в снимок, остальные повторяются из журнала поверх него
+            store.checkpoint();
+            store.write(() -> store.putTask(new Task(submitted.getId(), first.getId(), 1, TaskStatus.SUBMITTED)));
+            store.write(() -> store.putTask(new Task(reset.getId(), first.getId(), 2, TaskStatus.NOT_SUBMITTED)));
+            store.write(() -> store.removeTask(removed.getId()));
+        });
+
+        InMemoryStore recovered = recover();
+        recovered.read(() -> {
+            assertEquals(TaskStatus.SUBMITTED, recovered.findTask(submitted.getId()).orElseThrow().getStatus());
+            assertEquals(TaskStatus.NOT_SUBMITTED, recovered.findTask(first.getId(), 2).orElseThrow().getStatus());
+            assertFalse(recovered.findTask(removed.getId()).isPresent());
+
+            assertEquals(2, recovered.countTasksOfStudent(first.getId()));
+            assertEquals(1, recovered.countTasksOfStudent(first.getId(), TaskStatus.SUBMITTED));
+            assertEquals(1, recovered.countTasksOfStudent(second.getId()));
+            assertEquals(0, recovered.countTasksOfStudent(second.getId(), TaskStatus.SUBMITTED));
+
+            assertEquals(2, recovered.countStudentsOfGroup(group.getId()));
+            assertEquals(3, recovered.countTasksOfGroup(group.getId()));
+            assertEquals(1, recovered.countTasksOfGroup(group.getId(), TaskStatus.SUBMITTED));
+            assertEquals(2, recovered.countTasksOfGroup(group.getId(), TaskStatus.NOT_SUBMITTED));
+            return null;
+        });
+    }
+
+    @Test
+    void ignoresOlderGenerationAfterSnapshot() {
+        Group stale = group("ПИ-2");
+
+        run(store -> {
+            put(store, group("ПИ-1"));
+            put(store, stale);
+            store.write(() -> store.removeGroup(stale.getId()));
+            store.checkpoint();
+            // Запись той же длины, что и первая: за ней в файле остаются записи прошлого поколения
+            put(store, group("ПИ-3"));
+        });
+
+        assertEquals(List.of("ПИ-1", "ПИ-3"), names(recover()));
+    }
+
+    @Test
+    void doesNotReplayEntriesAfterLostEntry() throws IOException {
+        run(store -> {
+            put(store, group("ПИ-1"));
+            put(store, group("ПИ-2"));
+            put(store, group("ПИ-3"));
+        });
+
+        // Вторая запись потеряна (например, несброшенная страница при fsync = false), третья уцелела
+        List<Integer> entries = entryOffsets();
+        zero(entries.get(1), entries.get(2) - entries.get(1));
+
+        run(store -> {
+            assertEquals(List.of("ПИ-1"), names(store));
+            // Новая запись той же длины занимает место потерянной
+            put(store, group("ПИ-4"));
+        });
+
+        assertEquals(List.of("ПИ-1", "ПИ-4"), names(recover()));
+    }
+
+    // ---- вспомогательные методы ----
+
+    private interface Session {
+        void accept(InMemoryStore store) throws IOException;
+    }
+
+    /**
+     * Открывает журнал, восстанавливает хранилище и закрывает журнал без снимка, как при сбое процесса.
+     */
+    private void run(Session session) {
+        Journal journal = open();
+        try {
+            session.accept(journal.recover());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } finally {
+            journal.close();
+        }
+    }
+
+    private InMemoryStore recover() {
+        Journal journal = open();
+        try {
+            return journal.recover();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private Journal open() {
+        return Journal.open(dir, 4096, false, 1 << 20);
+    }
+
+    private static Group group(String name) {
+        return new Group(UUID.randomUUID(), name, 1);
+    }
+
+    private static void put(InMemoryStore store, Group group) {
+        store.write(() -> store.putGroup(group));
+    }
+
+    private static List<String> names(InMemoryStore store) {
+        return store.read(store::groups).stream().map(Group::getName).toList();
+    }
+
+    /**
+     * Смещения записей журнала текущего файла: каждая начинается с длины.
+     */
+    private List<Integer> entryOffsets() throws IOException {
+        List<Integer> offsets = new ArrayList<>();
+        int position = HEADER_SIZE;
+        long size = Files.size(journal());
+        while (position + Integer.BYTES <= size) {
+            int length = readInt(position);
+            if (length <= 0) {
+                break;
+            }
+            offsets.add(position);
+            position += length;
+        }
+        offsets.add(position);
+        return offsets;
+    }
+
+    private int readInt(int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal(), StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(bytes, position);
+            return bytes.getInt(0);
+        }
+    }
+
+    private void writeInt(int position, int value) throws IOException {
+        write(position, ByteBuffer.allocate(Integer.BYTES).putInt(0, value));
+    }
+
+    private void zero(int position, int length) throws IOException {
+        write(position, ByteBuffer.allocate(length));
+    }
+
+    private void write(int position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal(), StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private Path journal() {
+        return dir.resolve("journal.log");
+    }
+}
@@ -0,0 +1,133 @@
+package ru.vsu.cs.odinaev.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.vsu.cs.odinaev.cache.LruCache;
+import ru.vsu.cs.odinaev.database.InMemoryStore;
+import ru.vsu.cs.odinaev.database.InMemoryTransactionManager;
+import ru.vsu.cs.odinaev.model.Group;
+import ru.vsu.cs.odinaev.model.Student;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Кэширующие репозитории после записи вне транзакции: чтение, попавшее между началом записи
+ * и ее завершением, не должно оставить в кэше старую строку.
+ */
+class CachingRepositoryTest {
+    private InMemoryStore store;
+    private LruCache<UUID, Group> groupCache;
+    private LruCache<UUID, Student> studentCache;
+    private InMemoryTransactionManager transactionManager;
+
+    // Чтение «параллельного» потока, выполняемое делегатом перед записью строки
+    private Runnable concurrentRead = () -> { };
+
+    private IGroupRepository groups;
+    private IStudentRepository students;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStore();
+        groupCache = new LruCache<>("groups", 100);
+        studentCache = new LruCache<>("students", 100);
+        transactionManager = new InMemoryTransactionManager(store);
+
+        groups = new CachingGroupRepository(new InMemoryGroupRepository(store) {
+            @Override
+            public void update(Group group) {
+                concurrentRead.run();
+                super.update(group);
+            }
+
+            @Override
+            public void delete(UUID id) {
+                concurrentRead.run();
+                super.delete(id);
+            }
+        }, groupCache, studentCache, transactionManager);
+
+        students = new CachingStudentRepository(new InMemoryStudentRepository(store) {
+            @Override
+            public void update(Student student) {
+                concurrentRead.run();
+                super.update(student);
+            }
+
+            @Override
+            public void delete(UUID id) {
+                concurrentRead.run();
+                super.delete(id);
+            }
+        }, studentCache, transactionManager);
+    }
+
+    @Test
+    void rereadsUpdatedGroup() {
+        Group group = new Group(UUID.randomUUID(), "ПИ-1", 1);
+        groups.save(group);
+
+        concurrentRead = () -> groups.findById(group.getId());
+        groups.update(new Group(group.getId(), "ПИ-2", 2));
+
+        assertEquals("ПИ-2", groups.findById(group.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void forgetsDeletedGroupAndItsStudents() {
+        Group group = new Group(UUID.randomUUID(), "ПИ-1", 1);
+        groups.save(group);
+        Student student = new Student(UUID.randomUUID(), "Иван", group.getId());
+        students.save(student);
+
+        concurrentRead = () -> {
+            groups.findById(group.getId());
+            students.findById(student.getId());
+        };
+        groups.delete(group.getId());
+
+        assertFalse(groups.existsById(group.getId()));
+        assertFalse(students.existsById(student.getId()));
+    }
+
+    @Test
+    void existsByIdCachesLoadedGroup() {
+        Group group = new Group(UUID.randomUUID(), "ПИ-1", 1);
+        groups.save(group);
+
+        assertTrue(groupCache.get(group.getId()).isEmpty());
+        assertTrue(groups.existsById(group.getId()));
+        assertTrue(groupCache.get(group.getId()).isPresent());
+    }
+
+    @Test
+    void rereadsUpdatedStudent() {
+        Group group = new Group(UUID.randomUUID(), "ПИ-1", 1);
+        groups.save(group);
+        Student student = new Student(UUID.randomUUID(), "Иван", group.getId());
+        students.save(student);
+
+        concurrentRead = () -> students.findById(student.getId());
+        students.update(new Student(student.getId(), "Петр", group.getId()));
+
+        assertEquals("Петр", students.findById(student.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void forgetsDeletedStudent() {
+        Group group = new Group(UUID.randomUUID(), "ПИ-1", 1);
+        groups.save(group);
+        Student student = new Student(UUID.randomUUID(), "Иван", group.getId());
+        students.save(student);
+
+        concurrentRead = () -> students.findById(student.getId());
+        students.delete(student.getId());
+
+        assertFalse(students.existsById(student.getId()));
+        assertTrue(students.findById(student.getId()).isEmpty());
+    }
+}
@@ -1,5 +1,18 @@
 #!/bin/bash
 
 ./gradlew clean
-./gradlew build
-java -jar build/libs/*.jar
\ No newline at end of file
+# Архив AppCDS не входит в build: тренировочный прогон собирает его отдельной задачей
+./gradlew build cdsArchive
+
+JVM_OPTS=()
+# Команда или сценарий в аргументах — короткий запуск: только C1 и последовательный GC
+# не тратят время на компилятор C2 и потоки G1; интерактивный сеанс работает с настройками по умолчанию
+if [ $# -gt 0 ]; then
+    JVM_OPTS+=(-XX:TieredStopAtLevel=1 -XX:+UseSerialGC)
+fi
+# Несуществующий SharedArchiveFile отключает и стандартный архив CDS JDK, поэтому флаг передается,
+# только если архив собран
+if [ -f build/libs/minibrs.jsa ]; then
+    JVM_OPTS+=(-XX:SharedArchiveFile=build/libs/minibrs.jsa)
+fi
+java "${JVM_OPTS[@]}" -jar build/libs/minibrs.jar "$@"